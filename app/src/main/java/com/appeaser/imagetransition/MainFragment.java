@@ -25,7 +25,9 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.FrameLayout;
 
+import com.appeaser.imagetransitionlibrary.ImageTransitionUtil;
 import com.appeaser.imagetransitionlibrary.TransitionImageView;
+import com.appeaser.imagetransitionlibrary.picasso.PicassoTransition;
 import com.squareup.picasso.Picasso;
 
 /**
@@ -51,7 +53,8 @@ public class MainFragment extends Fragment {
         dot = (TransitionImageView) view.findViewById(R.id.image_circle);
         FrameLayout flParent = (FrameLayout) view.findViewById(R.id.fl_parent);
 
-        Picasso.with(getContext()).load(R.drawable.sample).into(dot);
+        // Decoded no larger than `dot` - see ImageSizeHint
+        PicassoTransition.into(Picasso.with(getContext()).load(R.drawable.sample), dot);
 
         // Launch second Activity
         dot.setOnClickListener(new View.OnClickListener() {
@@ -59,8 +62,9 @@ public class MainFragment extends Fragment {
             public void onClick(View view) {
                 Intent i = new Intent(getContext(), SecondActivity.class);
                 String transitionName = getString(R.string.blue_name);
+                // Also hands the bitmap shown by `dot` over to SecondActivity
                 ActivityOptionsCompat transitionActivityOptions
-                        = ActivityOptionsCompat.makeSceneTransitionAnimation(getActivity(), dot, transitionName);
+                        = ImageTransitionUtil.makeSceneTransitionAnimation(getActivity(), dot, transitionName);
 
                 startActivity(i, transitionActivityOptions.toBundle());
             }
@@ -16,13 +16,19 @@
 
 package com.appeaser.imagetransition;
 
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
 import android.view.MenuItem;
 
+import com.appeaser.imagetransitionlibrary.EnterTransitionPostponer;
 import com.appeaser.imagetransitionlibrary.ImageTransitionUtil;
 import com.appeaser.imagetransitionlibrary.TransitionImageView;
+import com.appeaser.imagetransitionlibrary.picasso.PicassoTransition;
 import com.squareup.picasso.Picasso;
+import com.squareup.picasso.Target;
 
 /**
  * This sample is based on:
@@ -41,12 +47,47 @@ public class SecondActivity extends AppCompatActivity {
 
     TransitionImageView backdrop;
 
+    // Picasso only holds on to targets weakly
+    private final Target fullResolutionTarget = new Target() {
+        @Override
+        public void onBitmapLoaded(Bitmap bitmap, Picasso.LoadedFrom from) {
+            // swapped in once the enter transition has ended
+            backdrop.setFullResolutionImageBitmap(bitmap);
+        }
+
+        @Override
+        public void onBitmapFailed(Drawable errorDrawable) {}
+
+        @Override
+        public void onPrepareLoad(Drawable placeHolderDrawable) {}
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_second);
         backdrop = (TransitionImageView) findViewById(R.id.picture);
-        Picasso.with(this).load(R.drawable.sample).into(backdrop);
+
+        // Start the enter transition once `backdrop` has its image,
+        // rather than setting it up again mid-transition. Called first, so that
+        // a full resolution image from Picasso's memory cache is held back too.
+        EnterTransitionPostponer.postpone(this, EnterTransitionPostponer.DEFAULT_TIMEOUT_MILLIS,
+                new EnterTransitionPostponer.OnEnterTransitionStartedListener() {
+                    @Override
+                    public void onEnterTransitionStarted(long waitedMillis, boolean timedOut) {
+                        Log.d(TAG, "Enter transition postponed for " + waitedMillis + "ms"
+                                + (timedOut ? " (timed out)" : ""));
+                    }
+                }, backdrop);
+
+        // When launched from MainFragment, `backdrop` already shows
+        // the bitmap decoded there - see BitmapHandoff. It is animated
+        // as-is, and replaced by the full resolution image afterwards.
+        if (backdrop.getDrawable() == null) {
+            PicassoTransition.into(Picasso.with(this).load(R.drawable.sample), backdrop);
+        } else {
+            Picasso.with(this).load(R.drawable.sample).into(fullResolutionTarget);
+        }
 
         if (getSupportActionBar() != null) {
             getSupportActionBar().setDisplayHomeAsUpEnabled(true);
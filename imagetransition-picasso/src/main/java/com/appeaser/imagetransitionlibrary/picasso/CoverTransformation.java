@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary.picasso;
+
+import android.graphics.Bitmap;
+
+import com.squareup.picasso.Transformation;
+
+/**
+ * Scales a decoded bitmap down to the smallest size that still covers
+ * the given target size using 'centerCrop', keeping its aspect ratio.
+ * Bitmaps that are already small enough are left alone.
+ *
+ * Unlike `resize(...).centerCrop()`, nothing is cropped - the image
+ * can still be animated to a view of a different aspect ratio.
+ *
+ * This only trims what's left over once the image has been decoded:
+ * {@link PicassoTransition} has Picasso downsample it while decoding first,
+ * so that the full-size image is never held in memory.
+ */
+public class CoverTransformation implements Transformation {
+
+    private final int mTargetWidth;
+    private final int mTargetHeight;
+
+    /**
+     * @param targetWidth width to cover, in pixels
+     * @param targetHeight height to cover, in pixels
+     */
+    public CoverTransformation(int targetWidth, int targetHeight) {
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            throw new IllegalArgumentException("Target size must be > 0");
+        }
+
+        mTargetWidth = targetWidth;
+        mTargetHeight = targetHeight;
+    }
+
+    @Override
+    public Bitmap transform(Bitmap source) {
+        float scale = Math.max(mTargetWidth / (float) source.getWidth(),
+                mTargetHeight / (float) source.getHeight());
+
+        if (scale >= 1f) {
+            return source;
+        }
+
+        int width = Math.max(1, Math.round(source.getWidth() * scale));
+        int height = Math.max(1, Math.round(source.getHeight() * scale));
+
+        Bitmap result = Bitmap.createScaledBitmap(source, width, height, true);
+
+        if (result != source) {
+            // required by Picasso when returning a new bitmap
+            source.recycle();
+        }
+
+        return result;
+    }
+
+    @Override
+    public String key() {
+        return "itl-cover(" + mTargetWidth + "x" + mTargetHeight + ")";
+    }
+}
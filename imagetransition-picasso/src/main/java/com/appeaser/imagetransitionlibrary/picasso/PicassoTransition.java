@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary.picasso;
+
+import android.view.ViewTreeObserver;
+
+import com.appeaser.imagetransitionlibrary.ImageSizeHint;
+import com.appeaser.imagetransitionlibrary.TransitionImageView;
+import com.squareup.picasso.RequestCreator;
+
+/**
+ * Loads images into {@link TransitionImageView}s using Picasso, at the size
+ * reported by {@link ImageSizeHint#getTargetImageWidth()} &
+ * {@link ImageSizeHint#getTargetImageHeight()} - i.e. no larger than
+ * the view will show, including the end bounds of transitions:
+ *
+ * <pre>
+ * PicassoTransition.into(Picasso.with(context).load(url), transitionImageView);
+ * </pre>
+ *
+ * If the view hasn't been laid out yet, and no target size was set
+ * using {@link TransitionImageView#setTargetImageSize(int, int)},
+ * the request is started once the view has a size.
+ *
+ * Images are downsampled while decoding (`resize(...).centerInside().onlyScaleDown()`),
+ * then trimmed to the smallest size covering the target by {@link CoverTransformation}.
+ */
+public final class PicassoTransition {
+
+    // Images up to this aspect ratio (either way) still cover the target size
+    // after being decoded to fit inside the resize box. More elongated
+    // images end up slightly smaller than needed.
+    private static final int MAX_COVERED_ASPECT_RATIO = 2;
+
+    private PicassoTransition() {}
+
+    /**
+     * Starts `request` for `view`, cancelling any earlier request made for `view`.
+     * `request` is resized here, and must not be resized or cropped by the caller.
+     *
+     * @param request Picasso request to start
+     * @param view view to load the image into
+     */
+    public static void into(RequestCreator request, TransitionImageView view) {
+        TransitionImageViewTarget target = (TransitionImageViewTarget) view.getTag(R.id.itl_picasso_target);
+
+        if (target == null) {
+            // Picasso only holds on to targets weakly
+            target = new TransitionImageViewTarget(view);
+            view.setTag(R.id.itl_picasso_target, target);
+        }
+
+        if (target.mDeferredLoad != null) {
+            target.mDeferredLoad.cancel();
+            target.mDeferredLoad = null;
+        }
+
+        if (!startIfSized(request, view, target)) {
+            target.mDeferredLoad = new DeferredLoad(request, view, target);
+            view.getViewTreeObserver().addOnPreDrawListener(target.mDeferredLoad);
+        }
+    }
+
+    private static boolean startIfSized(RequestCreator request, ImageSizeHint sizeHint,
+                                        TransitionImageViewTarget target) {
+        int targetWidth = sizeHint.getTargetImageWidth();
+        int targetHeight = sizeHint.getTargetImageHeight();
+
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            return false;
+        }
+
+        // Fitting inside this box, the image still covers the target size
+        int boxWidth = Math.max(targetWidth, targetHeight * MAX_COVERED_ASPECT_RATIO);
+        int boxHeight = Math.max(targetHeight, targetWidth * MAX_COVERED_ASPECT_RATIO);
+
+        request.resize(boxWidth, boxHeight)
+                .centerInside()
+                .onlyScaleDown()
+                .transform(new CoverTransformation(targetWidth, targetHeight))
+                .into(target);
+        return true;
+    }
+
+    /**
+     * Starts a request on the first pre-draw pass at which the view has a size.
+     */
+    static class DeferredLoad implements ViewTreeObserver.OnPreDrawListener {
+
+        private final RequestCreator mRequest;
+        private final TransitionImageView mView;
+        private final TransitionImageViewTarget mTarget;
+
+        DeferredLoad(RequestCreator request, TransitionImageView view,
+                     TransitionImageViewTarget target) {
+            mRequest = request;
+            mView = view;
+            mTarget = target;
+        }
+
+        @Override
+        public boolean onPreDraw() {
+            if (startIfSized(mRequest, mView, mTarget)) {
+                cancel();
+                mTarget.mDeferredLoad = null;
+            }
+
+            return true;
+        }
+
+        void cancel() {
+            ViewTreeObserver observer = mView.getViewTreeObserver();
+
+            if (observer.isAlive()) {
+                observer.removeOnPreDrawListener(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary.picasso;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+
+import com.appeaser.imagetransitionlibrary.TransitionImageView;
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.Target;
+
+/**
+ * Picasso {@link Target} for a {@link TransitionImageView}. If a transition
+ * is running on the view when the bitmap arrives, the bitmap is swapped in
+ * once the transition has ended - see
+ * {@link TransitionImageView#setFullResolutionImageBitmap(Bitmap)}.
+ *
+ * There is one target per view, so that Picasso cancels stale requests
+ * when the view is rebound. See {@link PicassoTransition}.
+ */
+public class TransitionImageViewTarget implements Target {
+
+    private final TransitionImageView mView;
+
+    // Load waiting for the view to be laid out
+    PicassoTransition.DeferredLoad mDeferredLoad;
+
+    TransitionImageViewTarget(TransitionImageView view) {
+        mView = view;
+    }
+
+    @Override
+    public void onBitmapLoaded(Bitmap bitmap, Picasso.LoadedFrom from) {
+        if (mView.isTransitionRunning() && mView.getDrawable() != null) {
+            mView.setFullResolutionImageBitmap(bitmap);
+        } else {
+            mView.setImageBitmap(bitmap);
+        }
+    }
+
+    @Override
+    public void onBitmapFailed(Drawable errorDrawable) {
+        if (errorDrawable != null) {
+            mView.setImageDrawable(errorDrawable);
+        }
+    }
+
+    @Override
+    public void onPrepareLoad(Drawable placeHolderDrawable) {
+        if (placeHolderDrawable != null) {
+            mView.setImageDrawable(placeHolderDrawable);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide registry that hands decoded bitmaps from a shared
+ * {@link TransitionImageView} in the calling `Activity` over to the
+ * {@link TransitionImageView} with the same transition name in the
+ * called `Activity`. The destination view picks the bitmap up while it
+ * is being inflated, so the enter transition doesn't wait for a decode.
+ *
+ * Bitmaps are only weakly referenced - the source view keeps them alive -
+ * and at most {@link #MAX_ENTRIES} entries are kept. An entry is
+ * removed once it has been taken, or expires {@link #EXPIRY_MILLIS}
+ * after being published - so that a bitmap the called `Activity`
+ * didn't pick up isn't adopted by a later, unrelated one.
+ *
+ * See {@link ImageTransitionUtil#makeSceneTransitionAnimation(android.app.Activity,
+ * TransitionImageView, String)}.
+ */
+public final class BitmapHandoff {
+
+    // Upper bound on the number of entries held
+    static final int MAX_ENTRIES = 8;
+
+    // Time within which the called `Activity` is expected to inflate its views
+    static final long EXPIRY_MILLIS = 5000;
+
+    private static BitmapHandoff sInstance;
+
+    // Insertion-ordered: the oldest entry is dropped first
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<String, Entry>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    BitmapHandoff() {}
+
+    /**
+     * Returns the process-wide registry instance.
+     *
+     * @return the shared registry
+     */
+    public static synchronized BitmapHandoff getInstance() {
+        if (sInstance == null) {
+            sInstance = new BitmapHandoff();
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Publishes the bitmap currently shown by `view` under the given transition name.
+     * Bitmaps that `view` rasterized itself are not published - they are
+     * handed back to the {@link BitmapPool} when `view` is detached.
+     *
+     * @param transitionName transition name of the shared element in the called `Activity`
+     * @param view source of the bitmap
+     * @return `true` if a bitmap was published
+     */
+    public boolean publish(String transitionName, TransitionImageView view) {
+        Bitmap bitmap = view.getShareableBitmap();
+
+        if (transitionName == null || bitmap == null) {
+            return false;
+        }
+
+        put(transitionName, bitmap);
+        return true;
+    }
+
+    void put(String transitionName, Bitmap bitmap) {
+        put(transitionName, bitmap, SystemClock.uptimeMillis());
+    }
+
+    synchronized void put(String transitionName, Bitmap bitmap, long nowMillis) {
+        removeExpired(nowMillis);
+
+        // re-inserted, so that it counts as the newest entry
+        mEntries.remove(transitionName);
+        mEntries.put(transitionName, new Entry(bitmap, nowMillis));
+    }
+
+    Bitmap take(String transitionName) {
+        return take(transitionName, SystemClock.uptimeMillis());
+    }
+
+    /**
+     * Removes & returns the bitmap published under the given transition name,
+     * or `null` if there is none, it has expired, or it has since been reclaimed.
+     *
+     * @param transitionName transition name of the destination view
+     * @param nowMillis current time, in `SystemClock#uptimeMillis()` time base
+     * @return the published bitmap, or `null`
+     */
+    synchronized Bitmap take(String transitionName, long nowMillis) {
+        removeExpired(nowMillis);
+
+        if (transitionName == null) {
+            return null;
+        }
+
+        Entry entry = mEntries.remove(transitionName);
+        Bitmap bitmap = entry != null ? entry.mBitmap.get() : null;
+
+        return bitmap != null && !bitmap.isRecycled() ? bitmap : null;
+    }
+
+    // Entries are insertion-ordered, so expired ones come first
+    private void removeExpired(long nowMillis) {
+        Iterator<Entry> iterator = mEntries.values().iterator();
+
+        while (iterator.hasNext() && nowMillis - iterator.next().mPublishedMillis >= EXPIRY_MILLIS) {
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns the number of entries currently held.
+     *
+     * @return entry count
+     */
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Drops all published bitmaps.
+     */
+    public synchronized void clear() {
+        mEntries.clear();
+    }
+
+    private static final class Entry {
+
+        final WeakReference<Bitmap> mBitmap;
+        final long mPublishedMillis;
+
+        Entry(Bitmap bitmap, long publishedMillis) {
+            mBitmap = new WeakReference<Bitmap>(bitmap);
+            mPublishedMillis = publishedMillis;
+        }
+    }
+}
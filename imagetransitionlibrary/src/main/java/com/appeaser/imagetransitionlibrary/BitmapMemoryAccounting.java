@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.WeakHashMap;
+
+/**
+ * Process-wide accounting of the bitmap memory held by live
+ * {@link TransitionImageView}s, meant for tests & debug builds.
+ *
+ * Bytes are split the same way as for a single view - see
+ * {@link TransitionImageView#getOwnedBitmapBytes()} &
+ * {@link TransitionImageView#getBorrowedBitmapBytes()}.
+ * A view is live for as long as it hasn't been garbage collected,
+ * attached to a window or not.
+ */
+public final class BitmapMemoryAccounting {
+
+    // A source bitmap covering its target area at this scale
+    // or less holds at least 4x the pixels that are drawn
+    static final float OVERSIZED_SCALE = 0.5f;
+
+    private static BitmapMemoryAccounting sInstance;
+
+    // Weak keys, so that views don't outlive their Activity on our account
+    private final WeakHashMap<TransitionImageView, Boolean> mViews
+            = new WeakHashMap<TransitionImageView, Boolean>();
+
+    private BitmapMemoryAccounting() {}
+
+    /**
+     * Returns the process-wide accounting instance.
+     *
+     * @return the shared instance
+     */
+    public static synchronized BitmapMemoryAccounting getInstance() {
+        if (sInstance == null) {
+            sInstance = new BitmapMemoryAccounting();
+        }
+
+        return sInstance;
+    }
+
+    synchronized void register(TransitionImageView view) {
+        mViews.put(view, Boolean.TRUE);
+    }
+
+    /**
+     * Returns the number of live views.
+     *
+     * @return live view count
+     */
+    public synchronized int getViewCount() {
+        return mViews.size();
+    }
+
+    /**
+     * Returns the number of bytes held by bitmaps that live views rasterized,
+     * downsampled or mipmapped themselves.
+     *
+     * @return owned bytes across all live views
+     */
+    public synchronized long getOwnedBytes() {
+        long bytes = 0;
+
+        for (TransitionImageView view : mViews.keySet()) {
+            bytes += view.getOwnedBitmapBytes();
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Returns the number of bytes held by bitmaps that live views draw from,
+     * but don't own. A bitmap shown by several views is counted once.
+     *
+     * @return borrowed bytes across all live views
+     */
+    public synchronized long getBorrowedBytes() {
+        IdentityHashMap<Bitmap, Boolean> counted = new IdentityHashMap<Bitmap, Boolean>();
+        long bytes = 0;
+
+        for (TransitionImageView view : mViews.keySet()) {
+            Bitmap bitmap = view.getShareableBitmap();
+
+            if (bitmap != null && counted.put(bitmap, Boolean.TRUE) == null) {
+                bytes += bitmap.getByteCount();
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Returns the sum of {@link #getOwnedBytes()} & {@link #getBorrowedBytes()}.
+     *
+     * @return total bytes across all live views
+     */
+    public synchronized long getTotalBytes() {
+        return getOwnedBytes() + getBorrowedBytes();
+    }
+
+    /**
+     * Returns the live views whose image is much larger than the area it's drawn
+     * to. See {@link TransitionImageView#isBitmapOversized()}.
+     *
+     * @return oversized views; empty if there are none
+     */
+    public synchronized List<TransitionImageView> getOversizedViews() {
+        List<TransitionImageView> oversized = new ArrayList<TransitionImageView>();
+
+        for (TransitionImageView view : mViews.keySet()) {
+            if (view.isBitmapOversized()) {
+                oversized.add(view);
+            }
+        }
+
+        return oversized;
+    }
+
+    /**
+     * Returns whether a bitmap of the given size is much larger than
+     * required to cover the target area using 'centerCrop' - i.e. whether it
+     * would be scaled down to half its size, or less, on both sides.
+     *
+     * @param bitmapWidth width of the bitmap
+     * @param bitmapHeight height of the bitmap
+     * @param targetWidth width of the area to cover
+     * @param targetHeight height of the area to cover
+     * @return `true` if the bitmap is oversized
+     */
+    static boolean isOversized(int bitmapWidth, int bitmapHeight, int targetWidth, int targetHeight) {
+        if (bitmapWidth <= 0 || bitmapHeight <= 0 || targetWidth <= 0 || targetHeight <= 0) {
+            return false;
+        }
+
+        return TransitionGeometry.centerCropScale(bitmapWidth, bitmapHeight,
+                targetWidth, targetHeight) <= OVERSIZED_SCALE;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide pool of mutable bitmaps that {@link TransitionImageView}
+ * rasterizes drawables into. Bitmaps are returned to the pool when a view's
+ * image is replaced, or when the view is detached from its window.
+ *
+ * Bitmaps are grouped by (width, height, config). The total byte count
+ * of pooled bitmaps is bounded by {@link #getMaxSize()}; when exceeded, bitmaps
+ * from the least recently used group are dropped.
+ */
+public final class BitmapPool {
+
+    // Default upper bound on the bytes held by the pool
+    private static final int DEFAULT_MAX_SIZE_BYTES = 8 * 1024 * 1024;
+
+    private static BitmapPool sInstance;
+
+    // Access-ordered: iteration starts at the least recently used group
+    private final LinkedHashMap<Key, ArrayDeque<Bitmap>> mGroups
+            = new LinkedHashMap<Key, ArrayDeque<Bitmap>>(16, 0.75f, true);
+
+    // Reused for lookups, so that `get(...)` doesn't allocate
+    private final Key mLookupKey = new Key();
+
+    private int mMaxSize;
+    private int mSize;
+
+    private BitmapPool(int maxSizeBytes) {
+        mMaxSize = maxSizeBytes;
+    }
+
+    /**
+     * Returns the process-wide pool instance.
+     *
+     * @return the shared pool
+     */
+    public static synchronized BitmapPool getInstance() {
+        if (sInstance == null) {
+            sInstance = new BitmapPool(DEFAULT_MAX_SIZE_BYTES);
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Returns a cleared bitmap of the given size & config from the pool,
+     * or `null` if none is available. The caller owns the returned bitmap.
+     *
+     * @param width bitmap width
+     * @param height bitmap height
+     * @param config bitmap config
+     * @return a pooled bitmap, or `null`
+     */
+    synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        mLookupKey.set(width, height, config);
+        ArrayDeque<Bitmap> group = mGroups.get(mLookupKey);
+
+        if (group == null || group.isEmpty()) {
+            return null;
+        }
+
+        Bitmap bitmap = group.pop();
+        mSize -= bitmap.getByteCount();
+
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * Returns a bitmap of the given size & config, taken from the pool
+     * if possible. The caller owns the returned bitmap.
+     *
+     * @param width bitmap width
+     * @param height bitmap height
+     * @param config bitmap config
+     * @return a cleared bitmap
+     */
+    Bitmap obtain(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = get(width, height, config);
+        return bitmap != null ? bitmap : Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Hands the given bitmap over to the pool. The caller
+     * must not use the bitmap after this call.
+     *
+     * @param bitmap bitmap to pool
+     */
+    synchronized void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()
+                || bitmap.getConfig() == null) {
+            return;
+        }
+
+        int byteCount = bitmap.getByteCount();
+
+        if (byteCount > mMaxSize) {
+            return;
+        }
+
+        mLookupKey.set(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+        ArrayDeque<Bitmap> group = mGroups.get(mLookupKey);
+
+        if (group == null) {
+            group = new ArrayDeque<Bitmap>();
+            mGroups.put(mLookupKey.copy(), group);
+        }
+
+        group.push(bitmap);
+        mSize += byteCount;
+
+        trimToSize(mMaxSize);
+    }
+
+    /**
+     * Sets the maximum number of bytes held by this pool,
+     * dropping bitmaps if required.
+     *
+     * @param maxSizeBytes upper bound on the bytes held by the pool
+     */
+    public synchronized void setMaxSize(int maxSizeBytes) {
+        if (maxSizeBytes < 0) {
+            throw new IllegalArgumentException("maxSizeBytes must be >= 0");
+        }
+
+        mMaxSize = maxSizeBytes;
+        trimToSize(mMaxSize);
+    }
+
+    /**
+     * Returns the maximum number of bytes held by this pool.
+     *
+     * @return upper bound on the bytes held
+     */
+    public synchronized int getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the number of bytes currently held by this pool.
+     *
+     * @return bytes held
+     */
+    public synchronized int getSize() {
+        return mSize;
+    }
+
+    /**
+     * Drops all pooled bitmaps.
+     */
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * Drops pooled bitmaps, least recently used groups first,
+     * until at most `maxSizeBytes` are held.
+     *
+     * @param maxSizeBytes number of bytes to trim down to
+     */
+    public synchronized void trimToSize(int maxSizeBytes) {
+        Iterator<Map.Entry<Key, ArrayDeque<Bitmap>>> iterator = mGroups.entrySet().iterator();
+
+        while (mSize > maxSizeBytes && iterator.hasNext()) {
+            ArrayDeque<Bitmap> group = iterator.next().getValue();
+
+            while (mSize > maxSizeBytes && !group.isEmpty()) {
+                mSize -= group.removeLast().getByteCount();
+            }
+
+            if (group.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Key {
+
+        private int mWidth;
+        private int mHeight;
+        private Bitmap.Config mConfig;
+
+        void set(int width, int height, Bitmap.Config config) {
+            mWidth = width;
+            mHeight = height;
+            mConfig = config;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.set(mWidth, mHeight, mConfig);
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return mWidth == key.mWidth && mHeight == key.mHeight && mConfig == key.mConfig;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mWidth;
+            result = 31 * result + mHeight;
+            result = 31 * result + mConfig.hashCode();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.DrawableContainer;
+import android.support.v4.util.LruCache;
+
+/**
+ * Process-wide cache of bitmaps that {@link TransitionImageView} rasterizes
+ * from non-bitmap drawables (vectors, layer-lists, shapes etc.).
+ *
+ * Entries are keyed by the drawable's {@link Drawable.ConstantState}, its level,
+ * the rasterized size & the bitmap config. This means that drawables
+ * inflated from the same resource are only rasterized once.
+ * Eviction is LRU, bounded by the total byte count of the cached bitmaps.
+ *
+ * Drawables that look different while sharing a `ConstantState` - stateful
+ * drawables & {@link DrawableContainer}s - are never cached; see
+ * {@link #isCacheable(Drawable)}. Drawables whose shared state is changed
+ * after being cached (e.g. `GradientDrawable#setColor(int)` without a prior
+ * `mutate()`) aren't detected, and keep showing the cached bitmap.
+ *
+ * Bitmaps handed out by this cache are shared - they must not be
+ * modified or recycled.
+ */
+public final class DrawableBitmapCache {
+
+    // Default upper bound on the bytes held by the cache
+    private static final int DEFAULT_MAX_SIZE_BYTES = 4 * 1024 * 1024;
+
+    private static DrawableBitmapCache sInstance;
+
+    private final LruCache<Key, Bitmap> mCache;
+
+    // Reused for lookups, so that only insertions allocate a key
+    private final Key mLookupKey = new Key();
+
+    private DrawableBitmapCache(int maxSizeBytes) {
+        mCache = new LruCache<Key, Bitmap>(maxSizeBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Returns the process-wide cache instance.
+     *
+     * @return the shared cache
+     */
+    public static synchronized DrawableBitmapCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new DrawableBitmapCache(DEFAULT_MAX_SIZE_BYTES);
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Returns whether the given drawable looks the same as every other drawable
+     * sharing its {@link Drawable.ConstantState} & level. This isn't the case for
+     * stateful drawables, where the look depends on per-instance state, nor for
+     * {@link DrawableContainer}s, whose shared state holds all their children.
+     *
+     * @param drawable drawable to be rasterized
+     * @return `true` if the drawable's bitmap can be cached
+     */
+    static boolean isCacheable(Drawable drawable) {
+        return drawable.getConstantState() != null
+                && !drawable.isStateful()
+                && !(drawable instanceof DrawableContainer);
+    }
+
+    synchronized Bitmap get(Drawable drawable, int width, int height, Bitmap.Config config) {
+        mLookupKey.set(drawable.getConstantState(), drawable.getLevel(), width, height, config);
+        Bitmap bitmap = mCache.get(mLookupKey);
+
+        // not holding on to the drawable's state
+        mLookupKey.set(null, 0, 0, 0, null);
+        return bitmap;
+    }
+
+    synchronized void put(Drawable drawable, int width, int height, Bitmap.Config config, Bitmap bitmap) {
+        mLookupKey.set(drawable.getConstantState(), drawable.getLevel(), width, height, config);
+        mCache.put(mLookupKey.copy(), bitmap);
+
+        mLookupKey.set(null, 0, 0, 0, null);
+    }
+
+    /**
+     * Sets the maximum number of bytes held by this cache,
+     * evicting least recently used entries if required.
+     *
+     * @param maxSizeBytes upper bound on the bytes held by the cache
+     */
+    public void resize(int maxSizeBytes) {
+        mCache.resize(maxSizeBytes);
+    }
+
+    /**
+     * Evicts least recently used entries until at most `maxSizeBytes` are held.
+     * Unlike {@link #resize(int)}, the maximum size is left unchanged.
+     *
+     * @param maxSizeBytes number of bytes to trim down to
+     */
+    public void trimToSize(int maxSizeBytes) {
+        mCache.trimToSize(maxSizeBytes);
+    }
+
+    /**
+     * Removes all entries from this cache.
+     */
+    public void evictAll() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Returns the number of bytes currently held by this cache.
+     *
+     * @return bytes held
+     */
+    public int size() {
+        return mCache.size();
+    }
+
+    /**
+     * Returns the maximum number of bytes held by this cache.
+     *
+     * @return upper bound on the bytes held
+     */
+    public int maxSize() {
+        return mCache.maxSize();
+    }
+
+    /**
+     * Returns the number of lookups that found a rasterized bitmap.
+     *
+     * @return hit count
+     */
+    public int hitCount() {
+        return mCache.hitCount();
+    }
+
+    /**
+     * Returns the number of lookups that required the drawable to be rasterized.
+     *
+     * @return miss count
+     */
+    public int missCount() {
+        return mCache.missCount();
+    }
+
+    /**
+     * Returns the number of entries that were evicted to stay within {@link #maxSize()}.
+     *
+     * @return eviction count
+     */
+    public int evictionCount() {
+        return mCache.evictionCount();
+    }
+
+    private static final class Key {
+
+        private Drawable.ConstantState mState;
+        private int mLevel;
+        private int mWidth;
+        private int mHeight;
+        private Bitmap.Config mConfig;
+
+        void set(Drawable.ConstantState state, int level, int width, int height, Bitmap.Config config) {
+            mState = state;
+            mLevel = level;
+            mWidth = width;
+            mHeight = height;
+            mConfig = config;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.set(mState, mLevel, mWidth, mHeight, mConfig);
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return mState == key.mState && mLevel == key.mLevel && mWidth == key.mWidth
+                    && mHeight == key.mHeight && mConfig == key.mConfig;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(mState);
+            result = 31 * result + mLevel;
+            result = 31 * result + mWidth;
+            result = 31 * result + mHeight;
+            result = 31 * result + mConfig.hashCode();
+            return result;
+        }
+    }
+}
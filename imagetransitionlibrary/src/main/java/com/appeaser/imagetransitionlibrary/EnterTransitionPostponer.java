@@ -0,0 +1,262 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.os.Build;
+import android.os.SystemClock;
+import android.support.v4.app.ActivityCompat;
+import android.transition.Transition;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * Postpones the enter transition of an `Activity` until every shared
+ * {@link TransitionImageView} has an image and has been laid out, so that
+ * {@link ImageTransition} doesn't start before the image has been
+ * delivered (by Picasso etc.), and then set up the view again mid-animation.
+ *
+ * The transition is started regardless once the timeout elapses.
+ *
+ * From the call to {@link #postpone} on, the shared elements hold back a full
+ * resolution image set with {@link TransitionImageView#setFullResolutionImageDrawable}
+ * until the enter transition has ended - call it before loading that image.
+ * If no enter transition starts within the timeout after {@link #startNow()},
+ * the images are swapped in then.
+ *
+ * <pre>
+ * // in the called Activity's `onCreate(Bundle)`
+ * EnterTransitionPostponer.postpone(this, EnterTransitionPostponer.DEFAULT_TIMEOUT_MILLIS,
+ *         listener, backdrop);
+ * </pre>
+ */
+public final class EnterTransitionPostponer
+        implements ViewTreeObserver.OnPreDrawListener, Runnable {
+
+    /**
+     * Default upper bound on the time the enter transition is postponed for.
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * Notified when the postponed enter transition is started.
+     */
+    public interface OnEnterTransitionStartedListener {
+
+        /**
+         * @param waitedMillis time the enter transition was postponed for
+         * @param timedOut `true` if the transition was started because
+         *                 the timeout elapsed, rather than because every
+         *                 shared `TransitionImageView` was ready
+         */
+        void onEnterTransitionStarted(long waitedMillis, boolean timedOut);
+    }
+
+    private final Activity mActivity;
+    private final View mDecorView;
+    private final TransitionImageView[] mSharedElements;
+    private final OnEnterTransitionStartedListener mListener;
+    private final long mPostponedAt;
+    private final long mTimeoutMillis;
+
+    private boolean mStarted;
+
+    // Set once the shared element enter transition has started
+    private boolean mTransitionStarted;
+
+    // Set once the shared elements no longer hold back their full resolution image
+    private boolean mReleased = true;
+
+    // Releases the shared elements if no enter transition started after all
+    private final Runnable mReleaseIfNotStarted = new Runnable() {
+        @Override
+        public void run() {
+            if (!mTransitionStarted) {
+                release();
+            }
+        }
+    };
+
+    private EnterTransitionPostponer(Activity activity, long timeoutMillis,
+                                     OnEnterTransitionStartedListener listener,
+                                     TransitionImageView[] sharedElements) {
+        mActivity = activity;
+        mDecorView = activity.getWindow().getDecorView();
+        mSharedElements = sharedElements;
+        mListener = listener;
+        mPostponedAt = SystemClock.uptimeMillis();
+        mTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Postpones the enter transition of `activity` until each of the
+     * `sharedElements` has an image & a non-zero size, or until
+     * `timeoutMillis` have elapsed. Call from `onCreate(Bundle)`.
+     *
+     * @param activity the called `Activity`
+     * @param timeoutMillis upper bound on the time the transition is postponed for
+     * @param listener notified when the transition is started; can be `null`
+     * @param sharedElements shared `TransitionImageView`s to wait for
+     * @return the postponer; see {@link #startNow()}
+     */
+    public static EnterTransitionPostponer postpone(Activity activity, long timeoutMillis,
+                                                    OnEnterTransitionStartedListener listener,
+                                                    TransitionImageView... sharedElements) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("timeoutMillis must be >= 0");
+        }
+
+        EnterTransitionPostponer postponer
+                = new EnterTransitionPostponer(activity, timeoutMillis, listener, sharedElements.clone());
+
+        ActivityCompat.postponeEnterTransition(activity);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            postponer.holdFullResolutionImages();
+        }
+
+        postponer.mDecorView.getViewTreeObserver().addOnPreDrawListener(postponer);
+        postponer.mDecorView.postDelayed(postponer, timeoutMillis);
+
+        return postponer;
+    }
+
+    /**
+     * Starts the enter transition without waiting any further.
+     */
+    public void startNow() {
+        start(false);
+    }
+
+    /**
+     * Returns whether the enter transition has been started.
+     *
+     * @return `true` if the transition has been started
+     */
+    public boolean isStarted() {
+        return mStarted;
+    }
+
+    @Override
+    public boolean onPreDraw() {
+        // layout is complete at this point, so view sizes are final
+        for (TransitionImageView sharedElement : mSharedElements) {
+            if (!sharedElement.isReadyForTransition()) {
+                return true;
+            }
+        }
+
+        start(false);
+        return true;
+    }
+
+    // Timeout
+    @Override
+    public void run() {
+        start(true);
+    }
+
+    private void start(boolean timedOut) {
+        if (mStarted) {
+            return;
+        }
+
+        mStarted = true;
+
+        ViewTreeObserver observer = mDecorView.getViewTreeObserver();
+
+        if (observer.isAlive()) {
+            observer.removeOnPreDrawListener(this);
+        }
+
+        mDecorView.removeCallbacks(this);
+
+        ActivityCompat.startPostponedEnterTransition(mActivity);
+
+        if (!mReleased) {
+            mDecorView.postDelayed(mReleaseIfNotStarted, mTimeoutMillis);
+        }
+
+        if (mListener != null) {
+            mListener.onEnterTransitionStarted(SystemClock.uptimeMillis() - mPostponedAt, timedOut);
+        }
+    }
+
+    /**
+     * Makes the shared elements hold back their full resolution image
+     * until the shared element enter transition has ended.
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void holdFullResolutionImages() {
+        Transition transition = mActivity.getWindow().getSharedElementEnterTransition();
+
+        if (transition == null) {
+            // no shared element transition will run
+            return;
+        }
+
+        mReleased = false;
+        transition.addListener(new SharedElementTransitionListener());
+
+        for (TransitionImageView sharedElement : mSharedElements) {
+            sharedElement.addPendingTransition();
+        }
+    }
+
+    private void release() {
+        if (mReleased) {
+            return;
+        }
+
+        mReleased = true;
+        mDecorView.removeCallbacks(mReleaseIfNotStarted);
+
+        for (TransitionImageView sharedElement : mSharedElements) {
+            sharedElement.removePendingTransition();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private class SharedElementTransitionListener implements Transition.TransitionListener {
+
+        @Override
+        public void onTransitionStart(Transition transition) {
+            mTransitionStarted = true;
+        }
+
+        @Override
+        public void onTransitionEnd(Transition transition) {
+            transition.removeListener(this);
+            release();
+        }
+
+        @Override
+        public void onTransitionCancel(Transition transition) {
+            transition.removeListener(this);
+            release();
+        }
+
+        @Override
+        public void onTransitionPause(Transition transition) {
+        }
+
+        @Override
+        public void onTransitionResume(Transition transition) {
+        }
+    }
+}
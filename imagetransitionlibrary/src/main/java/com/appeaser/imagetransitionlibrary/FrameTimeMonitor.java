@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+/**
+ * Tracks the interval between consecutive frames of an animation, and
+ * decides when drawing should switch to cheaper settings: once several
+ * consecutive frames have gone over budget. The decision holds until
+ * {@link #reset()}, so that quality doesn't flicker mid-animation.
+ */
+final class FrameTimeMonitor {
+
+    // Frame intervals above this mean that a vsync was missed at 60Hz
+    static final long DEFAULT_FRAME_BUDGET_NANOS = 20000000L;
+
+    // Consecutive over budget frames after which quality is reduced
+    static final int OVER_BUDGET_FRAME_THRESHOLD = 3;
+
+    private final long mFrameBudgetNanos;
+
+    private long mLastFrameNanos;
+    private int mOverBudgetFrames;
+    private boolean mQualityReduced;
+
+    FrameTimeMonitor() {
+        this(DEFAULT_FRAME_BUDGET_NANOS);
+    }
+
+    FrameTimeMonitor(long frameBudgetNanos) {
+        mFrameBudgetNanos = frameBudgetNanos;
+    }
+
+    /**
+     * Records a frame.
+     *
+     * @param frameTimeNanos time at which the frame is drawn, from `System.nanoTime()`
+     * @return `true` if quality should be reduced
+     */
+    boolean onFrame(long frameTimeNanos) {
+        if (mLastFrameNanos != 0 && !mQualityReduced) {
+            if (frameTimeNanos - mLastFrameNanos > mFrameBudgetNanos) {
+                mQualityReduced = ++mOverBudgetFrames >= OVER_BUDGET_FRAME_THRESHOLD;
+            } else {
+                mOverBudgetFrames = 0;
+            }
+        }
+
+        mLastFrameNanos = frameTimeNanos;
+        return mQualityReduced;
+    }
+
+    /**
+     * Records a frame that wasn't drawn. The interval from the last frame drawn
+     * to the next one spans more than one frame, and isn't counted.
+     */
+    void onFrameSkipped() {
+        mLastFrameNanos = 0;
+    }
+
+    boolean isQualityReduced() {
+        return mQualityReduced;
+    }
+
+    /**
+     * Forgets all recorded frames; call when an animation starts or ends.
+     */
+    void reset() {
+        mLastFrameNanos = 0;
+        mOverBudgetFrames = 0;
+        mQualityReduced = false;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes the image of a {@link TransitionImageView} on a background thread,
+ * for `setImageURI(Uri)` & `setImageResource(int)` when asynchronous decoding
+ * is enabled. `inSampleSize` is chosen so that the decoded bitmap still covers
+ * the view's target size using 'centerCrop'. The result is delivered on the
+ * main thread, unless the request was cancelled in the meantime.
+ *
+ * All requests share an executor with a fixed number of background threads.
+ */
+final class ImageDecodeRequest implements Runnable {
+
+    // Upper bound on the number of concurrent decodes
+    private static final int THREAD_COUNT = 2;
+
+    private static final long KEEP_ALIVE_SECONDS = 5;
+
+    private static ThreadPoolExecutor sExecutor;
+    private static Handler sMainHandler;
+
+    private final WeakReference<TransitionImageView> mViewRef;
+    private final Context mContext;
+
+    // Either `mUri`, or `mResId`
+    private final Uri mUri;
+    private final int mResId;
+
+    private int mTargetWidth;
+    private int mTargetHeight;
+
+    private boolean mSubmitted;
+    private volatile boolean mCancelled;
+
+    private ImageDecodeRequest(TransitionImageView view, Uri uri, int resId) {
+        mViewRef = new WeakReference<TransitionImageView>(view);
+        mContext = view.getContext().getApplicationContext();
+        mUri = uri;
+        mResId = resId;
+    }
+
+    static ImageDecodeRequest forUri(TransitionImageView view, Uri uri) {
+        return new ImageDecodeRequest(view, uri, 0);
+    }
+
+    static ImageDecodeRequest forResource(TransitionImageView view, int resId) {
+        return new ImageDecodeRequest(view, null, resId);
+    }
+
+    Uri getUri() {
+        return mUri;
+    }
+
+    int getResId() {
+        return mResId;
+    }
+
+    boolean isSubmitted() {
+        return mSubmitted;
+    }
+
+    /**
+     * Queues this request on the decode executor.
+     *
+     * @param targetWidth width the decoded bitmap should cover
+     * @param targetHeight height the decoded bitmap should cover
+     */
+    void submit(int targetWidth, int targetHeight) {
+        mTargetWidth = targetWidth;
+        mTargetHeight = targetHeight;
+        mSubmitted = true;
+
+        getExecutor().execute(this);
+    }
+
+    /**
+     * Drops this request. If it hasn't started yet, it is removed
+     * from the queue; otherwise, its result is discarded.
+     */
+    void cancel() {
+        mCancelled = true;
+
+        if (mSubmitted) {
+            getExecutor().remove(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        if (mCancelled) {
+            return;
+        }
+
+        Bitmap bitmap = null;
+
+        try {
+            bitmap = decode();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (OutOfMemoryError e) {
+            e.printStackTrace();
+        }
+
+        final Bitmap result = bitmap;
+
+        getMainHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                TransitionImageView view = mViewRef.get();
+
+                if (!mCancelled && view != null) {
+                    view.onImageDecoded(ImageDecodeRequest.this, result);
+                }
+            }
+        });
+    }
+
+    private Bitmap decode() throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decode(options);
+
+        if (options.outWidth <= 0 || options.outHeight <= 0 || mCancelled) {
+            // not a bitmap (e.g. a vector drawable), or no longer required
+            return null;
+        }
+
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight,
+                mTargetWidth, mTargetHeight);
+        options.inJustDecodeBounds = false;
+
+        return decode(options);
+    }
+
+    private Bitmap decode(BitmapFactory.Options options) throws IOException {
+        if (mUri == null) {
+            return BitmapFactory.decodeResource(mContext.getResources(), mResId, options);
+        }
+
+        InputStream in = mContext.getContentResolver().openInputStream(mUri);
+
+        if (in == null) {
+            return null;
+        }
+
+        try {
+            return BitmapFactory.decodeStream(in, null, options);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns the largest power of two by which an image of the given size can be
+     * subsampled, while still covering the target size using 'centerCrop'.
+     *
+     * @param width width of the encoded image
+     * @param height height of the encoded image
+     * @param targetWidth width to cover; `0` if unknown
+     * @param targetHeight height to cover; `0` if unknown
+     * @return `inSampleSize` to decode with
+     */
+    static int calculateInSampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            // decode at full size
+            return sampleSize;
+        }
+
+        while (width / (sampleSize * 2) >= targetWidth
+                && height / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+
+        return sampleSize;
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new DecodeThreadFactory());
+            sExecutor.allowCoreThreadTimeOut(true);
+        }
+
+        return sExecutor;
+    }
+
+    private static synchronized Handler getMainHandler() {
+        if (sMainHandler == null) {
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+
+        return sMainHandler;
+    }
+
+    private static class DecodeThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "TransitionImageView decode #" + mCount.incrementAndGet());
+
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
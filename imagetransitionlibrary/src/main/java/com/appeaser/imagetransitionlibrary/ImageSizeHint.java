@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+/**
+ * Pixel sizes an image loader can query before decoding,
+ * so that it decodes no more than will actually be shown.
+ *
+ * Sizes exclude padding. They are `0` until the view has been laid out,
+ * unless a target size was set ahead of time.
+ */
+public interface ImageSizeHint {
+
+    /**
+     * Returns the width the image is currently shown at.
+     *
+     * @return current width in pixels
+     */
+    int getImageWidth();
+
+    /**
+     * Returns the height the image is currently shown at.
+     *
+     * @return current height in pixels
+     */
+    int getImageHeight();
+
+    /**
+     * Returns the largest width the image will be shown at, including
+     * the end bounds of transitions. At least {@link #getImageWidth()}.
+     *
+     * @return target width in pixels
+     */
+    int getTargetImageWidth();
+
+    /**
+     * Returns the largest height the image will be shown at, including
+     * the end bounds of transitions. At least {@link #getImageHeight()}.
+     *
+     * @return target height in pixels
+     */
+    int getTargetImageHeight();
+}
@@ -19,8 +19,10 @@ package com.appeaser.imagetransitionlibrary;
 import android.animation.Animator;
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.res.TypedArray;
 import android.os.Build;
 import android.transition.ChangeBounds;
+import android.transition.Transition;
 import android.transition.TransitionValues;
 import android.util.AttributeSet;
 import android.view.ViewGroup;
@@ -37,36 +39,143 @@ public class ImageTransition extends ChangeBounds {
 
     //private static final String PROPNAME_ROUNDING_PROGRESS = "itl:changeBounds:roundingProgress";
 
+    // Computed once - queried by the framework for every captured view
+    private String[] mTransitionProperties;
+
+    // Drive bounds & rounding from a single ValueAnimator
+    private boolean mFusedAnimatorEnabled;
+
+    // Notified with the metrics of each TransitionImageView animated
+    private TransitionMetricsListener mMetricsListener;
+
+    // Hold back their full resolution image until this transition has ended
+    private final ImageTransitionCompatHelper.CapturedViews mCapturedViews
+            = new ImageTransitionCompatHelper.CapturedViews();
+
     public ImageTransition() {
+        addListener(new CapturedViewsReleaser());
     }
 
     @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     public ImageTransition(Context context, AttributeSet attrs) {
         super(context, attrs);
+
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.ImageTransition);
+        mFusedAnimatorEnabled = a.getBoolean(R.styleable.ImageTransition_itl_fusedAnimator, false);
+        a.recycle();
+
+        addListener(new CapturedViewsReleaser());
+    }
+
+    /**
+     * When enabled, a single {@link android.animation.ValueAnimator} drives both
+     * the bounds and the rounding of each {@link TransitionImageView}, instead
+     * of the animators created by {@link ChangeBounds} plus one for rounding.
+     * Transitions that reparent views or resize clip bounds are not fused.
+     * Disabled by default.
+     *
+     * @param enabled `true` to use a single animator per shared element
+     */
+    public void setFusedAnimatorEnabled(boolean enabled) {
+        mFusedAnimatorEnabled = enabled;
+    }
+
+    /**
+     * Returns whether a single animator drives bounds & rounding.
+     *
+     * @return `true` if enabled
+     */
+    public boolean isFusedAnimatorEnabled() {
+        return mFusedAnimatorEnabled;
+    }
+
+    /**
+     * Sets a listener that is notified with the {@link TransitionMetrics}
+     * of each {@link TransitionImageView} animated by this transition.
+     *
+     * @param listener listener to notify; `null` to stop measuring
+     */
+    public void setMetricsListener(TransitionMetricsListener listener) {
+        mMetricsListener = listener;
+    }
+
+    /**
+     * Returns the listener notified with the metrics of each animated view.
+     *
+     * @return the metrics listener, or `null`
+     */
+    public TransitionMetricsListener getMetricsListener() {
+        return mMetricsListener;
     }
 
     @Override
     public String[] getTransitionProperties() {
-        // pass parent's properties...
-        return ImageTransitionCompatHelper.getTransitionProperties(super.getTransitionProperties());
+        if (mTransitionProperties == null) {
+            // pass parent's properties...
+            mTransitionProperties = ImageTransitionCompatHelper.getTransitionProperties(
+                    super.getTransitionProperties());
+        }
+
+        return mTransitionProperties;
     }
 
     @Override
     public void captureStartValues(TransitionValues transitionValues) {
         super.captureStartValues(transitionValues);
         ImageTransitionCompatHelper.captureValues(transitionValues.view, transitionValues.values);
+        ImageTransitionCompatHelper.onStartValuesCaptured(transitionValues.view, mMetricsListener);
+        mCapturedViews.add(transitionValues.view);
     }
 
     @Override
     public void captureEndValues(TransitionValues transitionValues) {
         super.captureEndValues(transitionValues);
         ImageTransitionCompatHelper.captureValues(transitionValues.view, transitionValues.values);
+        mCapturedViews.add(transitionValues.view);
     }
 
     @Override
     public Animator createAnimator(ViewGroup sceneRoot, TransitionValues startValues, TransitionValues endValues) {
+        if (mFusedAnimatorEnabled && startValues != null && endValues != null) {
+            Animator animator = ImageTransitionCompatHelper.createFusedAnimator(endValues.view,
+                    startValues.values, endValues.values);
+
+            if (animator != null) {
+                return ImageTransitionCompatHelper.trackMetrics(animator, endValues.view, mMetricsListener);
+            }
+        }
+
         // pass parent's Animator
-        return ImageTransitionCompatHelper.createAnimator(super.createAnimator(sceneRoot, startValues, endValues),
+        Animator animator = ImageTransitionCompatHelper.createAnimator(
+                super.createAnimator(sceneRoot, startValues, endValues),
                 sceneRoot, endValues.view, startValues.values, endValues.values);
+
+        return ImageTransitionCompatHelper.trackMetrics(animator, endValues.view, mMetricsListener);
+    }
+
+    // Releases the views captured by this transition once it has run
+    private class CapturedViewsReleaser implements Transition.TransitionListener {
+
+        @Override
+        public void onTransitionStart(Transition transition) {
+        }
+
+        @Override
+        public void onTransitionEnd(Transition transition) {
+            mCapturedViews.release();
+        }
+
+        @Override
+        public void onTransitionCancel(Transition transition) {
+            mCapturedViews.release();
+        }
+
+        @Override
+        public void onTransitionPause(Transition transition) {
+        }
+
+        @Override
+        public void onTransitionResume(Transition transition) {
+        }
     }
 }
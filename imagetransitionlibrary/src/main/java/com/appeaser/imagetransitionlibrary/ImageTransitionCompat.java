@@ -19,6 +19,7 @@ package com.appeaser.imagetransitionlibrary;
 import android.animation.Animator;
 import android.support.annotation.NonNull;
 import android.support.transition.ChangeBounds;
+import android.support.transition.Transition;
 import android.support.transition.TransitionValues;
 import android.view.ViewGroup;
 
@@ -35,29 +36,131 @@ import android.view.ViewGroup;
  */
 class ImageTransitionCompat extends ChangeBounds {
 
+    // Computed once - queried by the framework for every captured view
+    private String[] mTransitionProperties;
+
+    // Drive bounds & rounding from a single ValueAnimator
+    private boolean mFusedAnimatorEnabled;
+
+    // Notified with the metrics of each TransitionImageView animated
+    private TransitionMetricsListener mMetricsListener;
+
+    // Hold back their full resolution image until this transition has ended
+    private final ImageTransitionCompatHelper.CapturedViews mCapturedViews
+            = new ImageTransitionCompatHelper.CapturedViews();
+
+    ImageTransitionCompat() {
+        addListener(new CapturedViewsReleaser());
+    }
+
+    /**
+     * When enabled, a single {@link android.animation.ValueAnimator} drives both
+     * the bounds and the rounding of each {@link TransitionImageView}.
+     * See {@link ImageTransition#setFusedAnimatorEnabled(boolean)}.
+     *
+     * @param enabled `true` to use a single animator per view
+     */
+    public void setFusedAnimatorEnabled(boolean enabled) {
+        mFusedAnimatorEnabled = enabled;
+    }
+
+    /**
+     * Returns whether a single animator drives bounds & rounding.
+     *
+     * @return `true` if enabled
+     */
+    public boolean isFusedAnimatorEnabled() {
+        return mFusedAnimatorEnabled;
+    }
+
+    /**
+     * Sets a listener that is notified with the {@link TransitionMetrics}
+     * of each {@link TransitionImageView} animated by this transition.
+     *
+     * @param listener listener to notify; `null` to stop measuring
+     */
+    public void setMetricsListener(TransitionMetricsListener listener) {
+        mMetricsListener = listener;
+    }
+
+    /**
+     * Returns the listener notified with the metrics of each animated view.
+     *
+     * @return the metrics listener, or `null`
+     */
+    public TransitionMetricsListener getMetricsListener() {
+        return mMetricsListener;
+    }
+
     @Override
     public String[] getTransitionProperties() {
-        // pass parent's properties...
-        return ImageTransitionCompatHelper.getTransitionProperties(super.getTransitionProperties());
+        if (mTransitionProperties == null) {
+            // pass parent's properties...
+            mTransitionProperties = ImageTransitionCompatHelper.getTransitionProperties(
+                    super.getTransitionProperties());
+        }
+
+        return mTransitionProperties;
     }
 
     @Override
     public void captureStartValues(@NonNull TransitionValues transitionValues) {
         super.captureStartValues(transitionValues);
         ImageTransitionCompatHelper.captureValues(transitionValues.view, transitionValues.values);
+        ImageTransitionCompatHelper.onStartValuesCaptured(transitionValues.view, mMetricsListener);
+        mCapturedViews.add(transitionValues.view);
     }
 
     @Override
     public void captureEndValues(@NonNull TransitionValues transitionValues) {
         super.captureEndValues(transitionValues);
         ImageTransitionCompatHelper.captureValues(transitionValues.view, transitionValues.values);
+        mCapturedViews.add(transitionValues.view);
     }
 
     @Override
     public Animator createAnimator(@NonNull ViewGroup sceneRoot, @NonNull TransitionValues startValues,
                                    @NonNull TransitionValues endValues) {
+        if (mFusedAnimatorEnabled) {
+            Animator animator = ImageTransitionCompatHelper.createFusedAnimator(endValues.view,
+                    startValues.values, endValues.values);
+
+            if (animator != null) {
+                return ImageTransitionCompatHelper.trackMetrics(animator, endValues.view, mMetricsListener);
+            }
+        }
+
         // pass parent's Animator
-        return ImageTransitionCompatHelper.createAnimator(super.createAnimator(sceneRoot, startValues, endValues),
+        Animator animator = ImageTransitionCompatHelper.createAnimator(
+                super.createAnimator(sceneRoot, startValues, endValues),
                 sceneRoot, endValues.view, startValues.values, endValues.values);
+
+        return ImageTransitionCompatHelper.trackMetrics(animator, endValues.view, mMetricsListener);
+    }
+
+    // Releases the views captured by this transition once it has run
+    private class CapturedViewsReleaser implements Transition.TransitionListener {
+
+        @Override
+        public void onTransitionStart(@NonNull Transition transition) {
+        }
+
+        @Override
+        public void onTransitionEnd(@NonNull Transition transition) {
+            mCapturedViews.release();
+        }
+
+        @Override
+        public void onTransitionCancel(@NonNull Transition transition) {
+            mCapturedViews.release();
+        }
+
+        @Override
+        public void onTransitionPause(@NonNull Transition transition) {
+        }
+
+        @Override
+        public void onTransitionResume(@NonNull Transition transition) {
+        }
     }
 }
@@ -17,8 +17,13 @@
 package com.appeaser.imagetransitionlibrary;
 
 import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
+import android.graphics.Rect;
+import android.os.Build;
+import android.support.v4.os.TraceCompat;
 import android.view.View;
 import android.view.ViewGroup;
 
@@ -34,6 +39,21 @@ class ImageTransitionCompatHelper {
 
     private static final String PROPNAME_ROUNDING_PROGRESS = "itl:changeBounds:roundingProgress";
 
+    // Section names, as shown in systrace
+    private static final String TRACE_CREATE_ANIMATOR = "ImageTransition#createAnimator";
+    private static final String TRACE_CREATE_FUSED_ANIMATOR = "ImageTransition#createFusedAnimator";
+
+    // Captured by ChangeBounds (both framework & support versions)
+    private static final String PROPNAME_BOUNDS = "android:changeBounds:bounds";
+    private static final String PROPNAME_PARENT = "android:changeBounds:parent";
+    private static final String PROPNAME_CLIP = "android:changeBounds:clip";
+
+    // Boxed values for the common cases, so that capturing them doesn't allocate
+    private static final Float ROUNDING_PROGRESS_MIN
+            = Float.valueOf(TransitionImageView.RoundingProgress.MIN.progressValue());
+    private static final Float ROUNDING_PROGRESS_MAX
+            = Float.valueOf(TransitionImageView.RoundingProgress.MAX.progressValue());
+
     static String[] getTransitionProperties(String[] parentTransitionProperties) {
         if (parentTransitionProperties == null || parentTransitionProperties.length == 0) {
             return new String[] {PROPNAME_ROUNDING_PROGRESS};
@@ -51,46 +71,326 @@ class ImageTransitionCompatHelper {
             // Values were set in the SharedElementCallback.
             // See ImageTransitionUtils for more info.
             values.put(PROPNAME_ROUNDING_PROGRESS,
-                    ((TransitionImageView)view).getRoundingProgress());
+                    boxRoundingProgress(((TransitionImageView)view).getRoundingProgress()));
+        }
+    }
+
+    /**
+     * Boxes the given rounding value, reusing instances for
+     * {@link TransitionImageView.RoundingProgress} values.
+     *
+     * @param roundingProgress rounding value to box
+     * @return boxed rounding value
+     */
+    static Float boxRoundingProgress(float roundingProgress) {
+        if (roundingProgress == ROUNDING_PROGRESS_MIN) {
+            return ROUNDING_PROGRESS_MIN;
+        } else if (roundingProgress == ROUNDING_PROGRESS_MAX) {
+            return ROUNDING_PROGRESS_MAX;
         }
+
+        return roundingProgress;
     }
 
     static Animator createAnimator(Animator parentAnimator, ViewGroup sceneRoot,
                                            View endValuesView,
                                            Map<String, Object> startValues,
                                            Map<String, Object> endValues) {
-        if (parentAnimator == null) {
-            return null;
-        }
+        TraceCompat.beginSection(TRACE_CREATE_ANIMATOR);
+
+        try {
+            if (parentAnimator == null) {
+                return null;
+            }
+
+            // retrieve start & end rounding values
+            Object startRoundingValue = startValues.get(PROPNAME_ROUNDING_PROGRESS);
+            Object endRoundingValue = endValues.get(PROPNAME_ROUNDING_PROGRESS);
 
-        // retrieve start & end rounding values
-        float startRoundingProgress = (float) startValues.get(PROPNAME_ROUNDING_PROGRESS);
-        float endRoundingProgress = (float) endValues.get(PROPNAME_ROUNDING_PROGRESS);
+            if (!(endValuesView instanceof TransitionImageView)
+                    || startRoundingValue == null || endRoundingValue == null) {
+                // not a TransitionImageView - nothing to add
+                return parentAnimator;
+            }
 
-        // our animator
-        final ObjectAnimator roundingProgressAnimator = ObjectAnimator.ofFloat(endValuesView,
-                TransitionImageView.ROUNDING_PROGRESS_PROPERTY,
-                startRoundingProgress, endRoundingProgress);
+            float startRoundingProgress = (Float) startRoundingValue;
+            float endRoundingProgress = (Float) endRoundingValue;
 
-        if (parentAnimator instanceof AnimatorSet) {
-            // Get all child Animators from the parent's set
-            ArrayList<Animator> parentAnimators = ((AnimatorSet)parentAnimator).getChildAnimations();
+            // let the view know how large it will get during this transition
+            ensureTargetSize((TransitionImageView) endValuesView, (Rect) startValues.get(PROPNAME_BOUNDS));
+            ensureTargetSize((TransitionImageView) endValuesView, (Rect) endValues.get(PROPNAME_BOUNDS));
 
-            // add our own Animator
-            parentAnimators.add(roundingProgressAnimator);
+            // our animator
+            final ObjectAnimator roundingProgressAnimator = ObjectAnimator.ofFloat(endValuesView,
+                    TransitionImageView.ROUNDING_PROGRESS_PROPERTY,
+                    startRoundingProgress, endRoundingProgress);
+
+            if (parentAnimator instanceof AnimatorSet) {
+                // ChangeBounds uses AnimatorSet#playTogether(...) - its child Animators
+                // have no dependencies. Adding our own Animator as an independent node
+                // plays it together with them, without copying the parent's set.
+                ((AnimatorSet)parentAnimator).play(roundingProgressAnimator);
+                return addTransitionListener(parentAnimator, endValuesView);
+            }
 
-            // Create a new AnimatorSet and play all Animators together.
-            // ChangeBounds uses AnimatorSet#playTogether(...) - so, the
-            // following should be OK.
-            parentAnimator = new AnimatorSet();
-            ((AnimatorSet)parentAnimator).playTogether(parentAnimators);
-        } else {
             // parentAnimator is not an AnimatorSet
             AnimatorSet set = new AnimatorSet();
             set.playTogether(parentAnimator, roundingProgressAnimator);
-            return set;
+            return addTransitionListener(set, endValuesView);
+        } finally {
+            TraceCompat.endSection();
+        }
+    }
+
+    // Lets the view defer the second stage of a two-stage image until the transition ends
+    private static Animator addTransitionListener(Animator animator, View view) {
+        animator.addListener(((TransitionImageView) view).getTransitionListener());
+        return animator;
+    }
+
+    /**
+     * Records the time at which the start values of the given view were captured,
+     * if a metrics listener is set. See {@link TransitionMetrics#getCaptureToFirstFrameNanos()}.
+     *
+     * @param view view whose start values were captured
+     * @param listener metrics listener of the transition; can be `null`
+     */
+    static void onStartValuesCaptured(View view, TransitionMetricsListener listener) {
+        if (listener != null && view instanceof TransitionImageView) {
+            ((TransitionImageView) view).onStartValuesCaptured(System.nanoTime());
+        }
+    }
+
+    /**
+     * Hands the metrics listener of the transition to the view
+     * the given animator runs on.
+     *
+     * @param animator animator created for `view`; can be `null`
+     * @param view view the animator runs on
+     * @param listener metrics listener of the transition; can be `null`
+     * @return `animator`
+     */
+    static Animator trackMetrics(Animator animator, View view, TransitionMetricsListener listener) {
+        if (animator != null && listener != null && view instanceof TransitionImageView) {
+            ((TransitionImageView) view).setTransitionMetricsListener(listener);
+        }
+
+        return animator;
+    }
+
+    private static void ensureTargetSize(TransitionImageView view, Rect bounds) {
+        if (bounds != null) {
+            view.ensureTargetSize(bounds.width(), bounds.height());
+        }
+    }
+
+    /**
+     * Returns a single {@link ValueAnimator} that drives both the bounds
+     * and the rounding of the given {@link TransitionImageView}, in place of
+     * the ChangeBounds {@link AnimatorSet} plus {@link ObjectAnimator} combination
+     * returned by {@link #createAnimator(Animator, ViewGroup, View, Map, Map)}.
+     * Values are interpolated on primitive floats, from a single update listener.
+     *
+     * Only the plain case of ChangeBounds is handled: same parent, no clip
+     * resizing. `null` is returned for anything else, in which case
+     * {@link #createAnimator(Animator, ViewGroup, View, Map, Map)} should be used.
+     *
+     * @param endValuesView view to animate
+     * @param startValues captured start values
+     * @param endValues captured end values
+     * @return fused animator, or `null` if this transition can't be fused
+     */
+    static Animator createFusedAnimator(View endValuesView,
+                                        Map<String, Object> startValues,
+                                        Map<String, Object> endValues) {
+        TraceCompat.beginSection(TRACE_CREATE_FUSED_ANIMATOR);
+
+        try {
+            if (!(endValuesView instanceof TransitionImageView)) {
+                return null;
+            }
+
+            Rect startBounds = (Rect) startValues.get(PROPNAME_BOUNDS);
+            Rect endBounds = (Rect) endValues.get(PROPNAME_BOUNDS);
+            Object startRoundingProgress = startValues.get(PROPNAME_ROUNDING_PROGRESS);
+            Object endRoundingProgress = endValues.get(PROPNAME_ROUNDING_PROGRESS);
+
+            if (startBounds == null || endBounds == null
+                    || startRoundingProgress == null || endRoundingProgress == null
+                    || startValues.get(PROPNAME_PARENT) != endValues.get(PROPNAME_PARENT)
+                    || startValues.containsKey(PROPNAME_CLIP) || endValues.containsKey(PROPNAME_CLIP)) {
+                return null;
+            }
+
+            if (startBounds.equals(endBounds) && startRoundingProgress.equals(endRoundingProgress)) {
+                // nothing to animate
+                return null;
+            }
+
+            TransitionImageView view = (TransitionImageView) endValuesView;
+            view.ensureTargetSize(startBounds.width(), startBounds.height());
+            view.ensureTargetSize(endBounds.width(), endBounds.height());
+
+            FusedUpdateListener listener = new FusedUpdateListener(view, startBounds, endBounds,
+                    (Float) startRoundingProgress, (Float) endRoundingProgress);
+
+            // like ChangeBounds, move the view to its start bounds right away
+            listener.apply(0f);
+
+            ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+            animator.addUpdateListener(listener);
+            animator.addListener(view.getTransitionListener());
+
+            // like ChangeBounds, keep the parent from laying out the view
+            // (and snapping it to its end bounds) while it's animated
+            if (view.getParent() instanceof ViewGroup) {
+                LayoutSuppressor suppressor = new LayoutSuppressor((ViewGroup) view.getParent());
+                animator.addListener(suppressor);
+
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+                    animator.addPauseListener(suppressor);
+                }
+            }
+
+            return animator;
+        } finally {
+            TraceCompat.endSection();
         }
+    }
+
+    /**
+     * Sets bounds & rounding of a {@link TransitionImageView}
+     * for the animated fraction. Doesn't allocate.
+     */
+    static class FusedUpdateListener implements ValueAnimator.AnimatorUpdateListener {
+
+        private final TransitionImageView mView;
 
-        return parentAnimator;
+        private final int mStartLeft, mStartTop, mStartRight, mStartBottom;
+        private final int mEndLeft, mEndTop, mEndRight, mEndBottom;
+        private final float mStartRoundingProgress, mEndRoundingProgress;
+
+        FusedUpdateListener(TransitionImageView view, Rect startBounds, Rect endBounds,
+                            float startRoundingProgress, float endRoundingProgress) {
+            mView = view;
+
+            mStartLeft = startBounds.left;
+            mStartTop = startBounds.top;
+            mStartRight = startBounds.right;
+            mStartBottom = startBounds.bottom;
+
+            mEndLeft = endBounds.left;
+            mEndTop = endBounds.top;
+            mEndRight = endBounds.right;
+            mEndBottom = endBounds.bottom;
+
+            mStartRoundingProgress = startRoundingProgress;
+            mEndRoundingProgress = endRoundingProgress;
+        }
+
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            // interpolated fraction, read without boxing
+            apply(animation.getAnimatedFraction());
+        }
+
+        void apply(float fraction) {
+            // a single size change per frame, never passing through an inconsistent frame
+            mView.layout(lerp(mStartLeft, mEndLeft, fraction), lerp(mStartTop, mEndTop, fraction),
+                    lerp(mStartRight, mEndRight, fraction), lerp(mStartBottom, mEndBottom, fraction));
+
+            mView.setRoundingProgress(mStartRoundingProgress
+                    + fraction * (mEndRoundingProgress - mStartRoundingProgress));
+        }
+
+        private static int lerp(int start, int end, float fraction) {
+            return Math.round(start + fraction * (end - start));
+        }
+    }
+
+    /**
+     * Suppresses layout of the animated view's parent while the animator runs,
+     * as `ChangeBounds` does when the parent doesn't change. Layout is
+     * allowed again when the animator ends, is cancelled or paused.
+     */
+    static class LayoutSuppressor extends AnimatorListenerAdapter {
+
+        private final ViewGroup mParent;
+        private boolean mSuppressed;
+
+        LayoutSuppressor(ViewGroup parent) {
+            mParent = parent;
+        }
+
+        @Override
+        public void onAnimationStart(Animator animation) {
+            suppressLayout(true);
+        }
+
+        @Override
+        public void onAnimationResume(Animator animation) {
+            suppressLayout(true);
+        }
+
+        @Override
+        public void onAnimationPause(Animator animation) {
+            suppressLayout(false);
+        }
+
+        @Override
+        public void onAnimationCancel(Animator animation) {
+            suppressLayout(false);
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            suppressLayout(false);
+        }
+
+        boolean isSuppressed() {
+            return mSuppressed;
+        }
+
+        private void suppressLayout(boolean suppress) {
+            if (mSuppressed != suppress) {
+                mSuppressed = suppress;
+                ViewGroupUtils.suppressLayout(mParent, suppress);
+            }
+        }
+    }
+
+    /**
+     * The {@link TransitionImageView}s whose values a transition has captured.
+     * Each holds back its full resolution image from the capture on, until
+     * {@link #release()} is called once the transition has ended - rather than
+     * until its animator starts, which may be a while later.
+     */
+    static final class CapturedViews {
+
+        private final ArrayList<TransitionImageView> mViews = new ArrayList<TransitionImageView>();
+
+        /**
+         * Adds the given view if it's a {@link TransitionImageView} that isn't added yet.
+         *
+         * @param view view whose values were captured
+         */
+        void add(View view) {
+            if (view instanceof TransitionImageView && !mViews.contains(view)) {
+                TransitionImageView transitionImageView = (TransitionImageView) view;
+                transitionImageView.addPendingTransition();
+                mViews.add(transitionImageView);
+            }
+        }
+
+        /**
+         * Lets every view added swap in its full resolution image, and forgets them.
+         */
+        void release() {
+            for (int i = 0; i < mViews.size(); i++) {
+                mViews.get(i).removePendingTransition();
+            }
+
+            mViews.clear();
+        }
     }
 }
@@ -16,10 +16,13 @@
 
 package com.appeaser.imagetransitionlibrary;
 
+import android.app.Activity;
+import android.support.v4.app.ActivityOptionsCompat;
 import android.support.v4.app.SharedElementCallback;
-import android.view.View;
 
-import java.util.List;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 public class ImageTransitionUtil {
 
@@ -31,58 +34,11 @@ public class ImageTransitionUtil {
     // second `Activity` is not rounded at all.
     //
     // If you are using different values,
-    // use `prepareSharedElementCallbackFor(float, float)`, or provide your own
-    // implementation of `SharedElementCallback`.
+    // use `prepareSharedElementCallbackFor(float, float)`, `SharedElementCallbackBuilder`,
+    // or provide your own implementation of `SharedElementCallback`.
     public static SharedElementCallback DEFAULT_SHARED_ELEMENT_CALLBACK
-            = new SharedElementCallback() {
-
-        @Override
-        public void onSharedElementStart(List<String> sharedElementNames,
-                                         List<View> sharedElements, List<View> sharedElementSnapshots) {
-            super.onSharedElementStart(sharedElementNames, sharedElements, sharedElementSnapshots);
-
-            // find TransitionImageView in the list of shared elements
-            for (View sharedElement: sharedElements) {
-                if (sharedElement instanceof TransitionImageView) {
-                    // this value is retrieved in `ImageTransition#captureStartValues(TransitionValues)`
-                    // when entering the second `Activity`.
-
-                    // while exiting from from second `Activity`, this value is retrieved
-                    // in `ImageTransition#captureEndValues(TransitionValues)`.
-                    ((TransitionImageView)sharedElement)
-                            .setRoundingProgress(TransitionImageView.RoundingProgress.MAX.progressValue());
-                }
-            }
-        }
-
-        @Override
-        public void onSharedElementEnd(List<String> sharedElementNames,
-                                       List<View> sharedElements, List<View> sharedElementSnapshots) {
-            super.onSharedElementEnd(sharedElementNames, sharedElements, sharedElementSnapshots);
-
-            // find TransitionImageView in the list of shared elements
-            for (View sharedElement: sharedElements) {
-                if (sharedElement instanceof TransitionImageView) {
-                    TransitionImageView tiv = (TransitionImageView) sharedElement;
-
-                    // this value is retrieved in `ImageTransition#captureEndValues(TransitionValues)`
-                    // when entering the second `Activity`.
-
-                    // while exiting from from second `Activity`, this value is retrieved
-                    // in `ImageTransition#captureStartValues(TransitionValues)`.
-
-                    // Note that we only set this value when entering (checked by the if-condition below)
-                    // the second `Activity`.
-                    // In case the user exits the second `Activity` before the transition completes,
-                    // we would like to transition from the current amount of rounding, rather
-                    // than the MIN value.
-                    if (tiv.getRoundingProgress() == TransitionImageView.RoundingProgress.MAX.progressValue()) {
-                        tiv.setRoundingProgress(TransitionImageView.RoundingProgress.MIN.progressValue());
-                    }
-                }
-            }
-        }
-    };
+            = prepareSharedElementCallbackFor(TransitionImageView.RoundingProgress.MAX.progressValue(),
+            TransitionImageView.RoundingProgress.MIN.progressValue());
 
     /**
      * Returns a `SharedElementCallback` that works with the given `rounding` amounts.
@@ -94,52 +50,110 @@ public class ImageTransitionUtil {
      * @param endValue rounding applied to TransitionImageView in the second Activity
      * @return SharedElementCallback that works with the given `rounding` amounts
      */
-    public static SharedElementCallback prepareSharedElementCallbackFor(final float startValue, final float endValue) {
-        return new SharedElementCallback() {
-            @Override
-            public void onSharedElementStart(List<String> sharedElementNames, List<View> sharedElements, List<View> sharedElementSnapshots) {
-                super.onSharedElementStart(sharedElementNames, sharedElements, sharedElementSnapshots);
-
-                // find TransitionImageView in the list of shared elements
-                for (View sharedElement: sharedElements) {
-                    if (sharedElement instanceof TransitionImageView) {
-                        // this value is retrieved in `ImageTransition#captureStartValues(TransitionValues)`
-                        // when entering the second `Activity`.
-
-                        // while exiting from from second `Activity`, this value is retrieved
-                        // in `ImageTransition#captureEndValues(TransitionValues)`.
-                        ((TransitionImageView)sharedElement)
-                                .setRoundingProgress(startValue);
-                    }
-                }
+    public static SharedElementCallback prepareSharedElementCallbackFor(float startValue, float endValue) {
+        return new RoundingSharedElementCallback(
+                Collections.<String, RoundingSharedElementCallback.RoundingTargets>emptyMap(),
+                new RoundingSharedElementCallback.RoundingTargets(startValue, endValue));
+    }
+
+    /**
+     * Same as {@link ActivityOptionsCompat#makeSceneTransitionAnimation(Activity, android.view.View, String)},
+     * but also publishes the bitmap shown by `sharedElement` to the {@link BitmapHandoff}.
+     * The `TransitionImageView` named `sharedElementName` in the called `Activity`
+     * then shows this bitmap while it is being inflated, if it has no image of its own.
+     *
+     * @param activity the calling `Activity`
+     * @param sharedElement the `TransitionImageView` to transition from
+     * @param sharedElementName transition name of the shared element in the called `Activity`
+     * @return ActivityOptionsCompat to start the called `Activity` with
+     */
+    public static ActivityOptionsCompat makeSceneTransitionAnimation(Activity activity,
+                                                                     TransitionImageView sharedElement,
+                                                                     String sharedElementName) {
+        BitmapHandoff.getInstance().publish(sharedElementName, sharedElement);
+        return ActivityOptionsCompat.makeSceneTransitionAnimation(activity, sharedElement, sharedElementName);
+    }
+
+    /**
+     * Builds a `SharedElementCallback` with per-element `rounding` amounts,
+     * for transitions that move several `TransitionImageView`s of different shapes.
+     * Elements are matched by transition name:
+     *
+     * <pre>
+     * SharedElementCallback callback = new ImageTransitionUtil.SharedElementCallbackBuilder()
+     *         .setRounding("avatar", 1f, 0f)
+     *         .setRounding("cover", 0.2f, 0f)
+     *         .build();
+     * </pre>
+     *
+     * `TransitionImageView`s whose transition names have no rounding amounts
+     * are left alone, unless {@link #setDefaultRounding(float, float)} is used.
+     */
+    public static class SharedElementCallbackBuilder {
+
+        private final Map<String, RoundingSharedElementCallback.RoundingTargets> mTargets
+                = new HashMap<String, RoundingSharedElementCallback.RoundingTargets>();
+        private RoundingSharedElementCallback.RoundingTargets mDefaultTargets;
+
+        /**
+         * Sets the `rounding` amounts for the shared element with the given transition name.
+         *
+         * @param transitionName transition name of the shared element
+         * @param startValue rounding applied to TransitionImageView in the first Activity
+         * @param endValue rounding applied to TransitionImageView in the second Activity
+         * @return this builder
+         */
+        public SharedElementCallbackBuilder setRounding(String transitionName, float startValue, float endValue) {
+            if (transitionName == null) {
+                throw new IllegalArgumentException("transitionName cannot be null");
             }
 
-            @Override
-            public void onSharedElementEnd(List<String> sharedElementNames, List<View> sharedElements, List<View> sharedElementSnapshots) {
-                super.onSharedElementEnd(sharedElementNames, sharedElements, sharedElementSnapshots);
-
-                // find TransitionImageView in the list of shared elements
-                for (View sharedElement: sharedElements) {
-                    if (sharedElement instanceof TransitionImageView) {
-                        TransitionImageView tiv = (TransitionImageView) sharedElement;
-
-                        // this value is retrieved in `ImageTransition#captureEndValues(TransitionValues)`
-                        // when entering the second `Activity`.
-
-                        // while exiting from from second `Activity`, this value is retrieved
-                        // in `ImageTransition#captureStartValues(TransitionValues)`.
-
-                        // Note that we only set this value when entering (checked by the if-condition below)
-                        // the second `Activity`.
-                        // In case the user exits the second `Activity` before the transition completes,
-                        // we would like to transition from the current amount of rounding, rather
-                        // than the MIN value.
-                        if (tiv.getRoundingProgress() == startValue) {
-                            tiv.setRoundingProgress(endValue);
-                        }
-                    }
+            mTargets.put(transitionName, new RoundingSharedElementCallback.RoundingTargets(startValue, endValue));
+            return this;
+        }
+
+        /**
+         * Sets the `rounding` amounts for the shared elements in the given map.
+         *
+         * @param roundingValues map of transition name to a `{startValue, endValue}` pair
+         * @return this builder
+         */
+        public SharedElementCallbackBuilder setRounding(Map<String, float[]> roundingValues) {
+            for (Map.Entry<String, float[]> entry : roundingValues.entrySet()) {
+                float[] values = entry.getValue();
+
+                if (values == null || values.length != 2) {
+                    throw new IllegalArgumentException("Rounding for '" + entry.getKey()
+                            + "' must be a {startValue, endValue} pair");
                 }
+
+                setRounding(entry.getKey(), values[0], values[1]);
             }
-        };
+
+            return this;
+        }
+
+        /**
+         * Sets the `rounding` amounts for `TransitionImageView`s
+         * whose transition names were not given rounding amounts.
+         *
+         * @param startValue rounding applied to TransitionImageView in the first Activity
+         * @param endValue rounding applied to TransitionImageView in the second Activity
+         * @return this builder
+         */
+        public SharedElementCallbackBuilder setDefaultRounding(float startValue, float endValue) {
+            mDefaultTargets = new RoundingSharedElementCallback.RoundingTargets(startValue, endValue);
+            return this;
+        }
+
+        /**
+         * Returns a `SharedElementCallback` that works with the rounding amounts set so far.
+         * Later changes to this builder do not affect the returned callback.
+         *
+         * @return SharedElementCallback that works with the given `rounding` amounts
+         */
+        public SharedElementCallback build() {
+            return new RoundingSharedElementCallback(mTargets, mDefaultTargets);
+        }
     }
 }
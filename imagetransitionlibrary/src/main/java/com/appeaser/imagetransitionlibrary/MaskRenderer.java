@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.RectF;
+
+/**
+ * Draws the bitmap into a layer & masks it using a cached ALPHA_8
+ * bitmap of the rounded rect. The mask is only rebuilt when the size
+ * of the rounded rect or its corner radius change, which makes this
+ * suited to software canvases showing mostly static content.
+ *
+ * A single mask bitmap is kept, large enough for the largest rounded rect
+ * expected (see {@link #setMaxSize(int, int)}); smaller rects are drawn into
+ * its top-left corner. Its size isn't one other views are likely to reuse,
+ * so it isn't taken from or handed back to the {@link BitmapPool}.
+ */
+final class MaskRenderer extends TransitionRenderer {
+
+    private final Matrix mMatrix = new Matrix();
+
+    private final Paint mMaskPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mMaskXferPaint = new Paint();
+
+    // Reused for every rebuild of the mask
+    private final Canvas mMaskCanvas = new Canvas();
+    private final RectF mMaskRect = new RectF();
+
+    private Bitmap mMask;
+    private int mMaxWidth;
+    private int mMaxHeight;
+    private int mMaskWidth;
+    private int mMaskHeight;
+    private float mMaskRadius;
+    private boolean mMaskDirty = true;
+
+    // Number of times the mask has been built - used in tests
+    private int mMaskBuildCount;
+
+    MaskRenderer(Paint paint) {
+        super(paint);
+        mMaskPaint.setColor(Color.BLACK);
+        mMaskXferPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_IN));
+    }
+
+    @Override
+    void setBounds(float left, float top, float right, float bottom, float radius) {
+        super.setBounds(left, top, right, bottom, radius);
+
+        int width = (int) Math.ceil(right - left);
+        int height = (int) Math.ceil(bottom - top);
+
+        if (width != mMaskWidth || height != mMaskHeight || radius != mMaskRadius) {
+            mMaskWidth = width;
+            mMaskHeight = height;
+            mMaskRadius = radius;
+            mMaskDirty = true;
+        }
+    }
+
+    @Override
+    void setMaxSize(int width, int height) {
+        mMaxWidth = Math.max(mMaxWidth, width);
+        mMaxHeight = Math.max(mMaxHeight, height);
+    }
+
+    @Override
+    void setShaderMatrix(Matrix matrix) {
+        mMatrix.set(matrix);
+    }
+
+    @Override
+    void draw(Canvas canvas) {
+        if (mBitmap == null || mMaskWidth <= 0 || mMaskHeight <= 0) {
+            return;
+        }
+
+        ensureMask();
+
+        int saveCount = canvas.saveLayer(mRect, null, Canvas.ALL_SAVE_FLAG);
+        canvas.drawBitmap(mBitmap, mMatrix, mPaint);
+        canvas.drawBitmap(mMask, mLeft, mTop, mMaskXferPaint);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * Rebuilds the mask if the rounded rect has changed since it was last drawn.
+     */
+    void ensureMask() {
+        if (mMaskDirty) {
+            buildMask();
+        }
+    }
+
+    /**
+     * Draws the rounded rect into the top-left corner of `mMask`, reusing the
+     * current mask bitmap unless the rounded rect has outgrown it.
+     */
+    private void buildMask() {
+        if (mMask == null || mMask.getWidth() < mMaskWidth || mMask.getHeight() < mMaskHeight) {
+            // the rest of a transition fits as well, if its end bounds are known
+            mMask = Bitmap.createBitmap(Math.max(mMaskWidth, mMaxWidth),
+                    Math.max(mMaskHeight, mMaxHeight), Bitmap.Config.ALPHA_8);
+            mMaskCanvas.setBitmap(mMask);
+        } else {
+            mMask.eraseColor(Color.TRANSPARENT);
+        }
+
+        // the mask is transparent outside the rounded rect - clipped by the layer when drawn
+        mMaskRect.set(0, 0, mMaskWidth, mMaskHeight);
+        mMaskCanvas.drawRoundRect(mMaskRect, mMaskRadius, mMaskRadius, mMaskPaint);
+
+        mMaskDirty = false;
+        mMaskBuildCount++;
+    }
+
+    int getMaskBuildCount() {
+        return mMaskBuildCount;
+    }
+
+    @Override
+    void release() {
+        super.release();
+        mMaskCanvas.setBitmap(null);
+        mMask = null;
+        mMaskDirty = true;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+
+/**
+ * Trims the {@link BitmapPool} & {@link DrawableBitmapCache} as the system
+ * runs low on memory. Registered with the application on construction of
+ * the first {@link TransitionImageView}; {@link #register(Context)} can be
+ * called earlier, e.g. from `Application#onCreate()`.
+ *
+ * Bitmaps in use by attached views aren't affected - views drop their
+ * own references when detached, or when their window is hidden.
+ */
+public final class MemoryTrimCallbacks implements ComponentCallbacks2 {
+
+    private static MemoryTrimCallbacks sInstance;
+
+    private MemoryTrimCallbacks() {}
+
+    /**
+     * Registers the process-wide callbacks with the application,
+     * unless already registered.
+     *
+     * @param context any context of the application
+     */
+    public static synchronized void register(Context context) {
+        if (sInstance != null || context == null) {
+            return;
+        }
+
+        Context applicationContext = context.getApplicationContext();
+
+        if (applicationContext == null) {
+            // not attached to an application (yet)
+            return;
+        }
+
+        sInstance = new MemoryTrimCallbacks();
+        applicationContext.registerComponentCallbacks(sInstance);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        BitmapPool pool = BitmapPool.getInstance();
+        pool.trimToSize(poolSizeForLevel(level, pool.getSize()));
+
+        DrawableBitmapCache cache = DrawableBitmapCache.getInstance();
+        cache.trimToSize(cacheSizeForLevel(level, cache.size()));
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    /**
+     * Returns the number of bytes the {@link BitmapPool} should be trimmed to.
+     * Pooled bitmaps are only scratch space for rasterizing - they're the
+     * first to go, and none are kept once memory is critical or the UI is hidden.
+     *
+     * @param level level passed to {@link #onTrimMemory(int)}
+     * @param size bytes currently held by the pool
+     * @return bytes to trim down to
+     */
+    static int poolSizeForLevel(int level, int size) {
+        if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            return 0;
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            return size / 2;
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes the {@link DrawableBitmapCache} should be
+     * trimmed to. Cached bitmaps save re-rasterizing drawables when views are
+     * shown again, so half are kept until the process is in the background.
+     *
+     * @param level level passed to {@link #onTrimMemory(int)}
+     * @param size bytes currently held by the cache
+     * @return bytes to trim down to
+     */
+    static int cacheSizeForLevel(int level, int size) {
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            return 0;
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            return size / 2;
+        }
+
+        return size;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * Chain of successively half-sized copies of a bitmap (a mip pyramid).
+ * Level `0` is the bitmap itself. Drawing from the level nearest the
+ * current scale keeps heavy downscaling cheap & free of aliasing.
+ *
+ * Levels are built by {@link #getLevel(int)}, each from the level above it,
+ * into bitmaps taken from the {@link BitmapPool}. {@link #release()} hands
+ * them back.
+ */
+final class MipChain {
+
+    // Levels below this size (on either side) are not built
+    static final int MIN_LEVEL_SIZE = 16;
+
+    // Upper bound on the number of levels, including the source
+    static final int MAX_LEVEL_COUNT = 8;
+
+    private final Bitmap[] mLevels;
+    private final int mLevelCount;
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    MipChain(Bitmap source) {
+        mLevelCount = levelCount(source.getWidth(), source.getHeight());
+        mLevels = new Bitmap[mLevelCount];
+        mLevels[0] = source;
+    }
+
+    Bitmap getSource() {
+        return mLevels[0];
+    }
+
+    int getLevelCount() {
+        return mLevelCount;
+    }
+
+    /**
+     * Returns the given level, building it (and any missing levels above it) if required.
+     *
+     * @param level level to return; in range [0, {@link #getLevelCount()})
+     * @return bitmap of the level
+     */
+    Bitmap getLevel(int level) {
+        if (mLevels[level] == null) {
+            Bitmap parent = getLevel(level - 1);
+            Bitmap.Config config = parent.getConfig() != null ? parent.getConfig() : Bitmap.Config.ARGB_8888;
+
+            Bitmap bitmap = BitmapPool.getInstance().obtain(levelSize(parent.getWidth(), 1),
+                    levelSize(parent.getHeight(), 1), config);
+
+            Canvas canvas = new Canvas(bitmap);
+            canvas.scale(bitmap.getWidth() / (float) parent.getWidth(),
+                    bitmap.getHeight() / (float) parent.getHeight());
+            canvas.drawBitmap(parent, 0, 0, mPaint);
+
+            mLevels[level] = bitmap;
+        }
+
+        return mLevels[level];
+    }
+
+    /**
+     * Returns the number of levels built so far, including the source.
+     * These are always the largest levels, as each is built from the one above it.
+     *
+     * @return number of built levels
+     */
+    int getBuiltLevelCount() {
+        int count = 1;
+
+        while (count < mLevelCount && mLevels[count] != null) {
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the number of bytes held by the levels built so far, excluding the source.
+     *
+     * @return bytes held by built levels
+     */
+    int getByteCount() {
+        int bytes = 0;
+
+        for (int i = 1; i < mLevelCount; i++) {
+            if (mLevels[i] != null) {
+                bytes += mLevels[i].getByteCount();
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Hands all built levels, except for the source, back to the {@link BitmapPool}.
+     */
+    void release() {
+        BitmapPool pool = BitmapPool.getInstance();
+
+        for (int i = 1; i < mLevelCount; i++) {
+            if (mLevels[i] != null) {
+                pool.put(mLevels[i]);
+                mLevels[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of levels in the chain of a bitmap of the given size.
+     *
+     * @param width width of the source bitmap
+     * @param height height of the source bitmap
+     * @return number of levels, including the source
+     */
+    static int levelCount(int width, int height) {
+        int count = 1;
+
+        while (count < MAX_LEVEL_COUNT
+                && levelSize(width, count) >= MIN_LEVEL_SIZE
+                && levelSize(height, count) >= MIN_LEVEL_SIZE) {
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the size of the given level, for a source of the given size.
+     *
+     * @param size width or height of the source bitmap
+     * @param level level of interest
+     * @return width or height of the level
+     */
+    static int levelSize(int size, int level) {
+        return Math.max(1, size >> level);
+    }
+
+    /**
+     * Returns the smallest level that can be drawn at the given
+     * scale (relative to the source) without being scaled up.
+     *
+     * @param scale scale at which the source would be drawn
+     * @param levelCount number of levels available
+     * @return level to draw from
+     */
+    static int levelForScale(float scale, int levelCount) {
+        int level = 0;
+
+        while (level < levelCount - 1 && scale <= 0.5f) {
+            scale *= 2f;
+            level++;
+        }
+
+        return level;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Outline;
+import android.graphics.Paint;
+import android.graphics.Shader;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewOutlineProvider;
+
+/**
+ * Clips the view to a rounded {@link Outline} & draws the bitmap unclipped.
+ * Rounding is applied by the RenderThread, so only the outline
+ * changes per frame - no shader state needs to be rebuilt.
+ *
+ * While installed, this renderer replaces the view's outline provider, and
+ * clips everything the view draws - including its background - to the outline.
+ * The previous provider & clipping are restored once it's removed.
+ * The outline is invalidated from the view's setters through {@link #onBoundsChanged()},
+ * never while drawing, which would take another traversal to pick it up.
+ *
+ * Outline clipping only applies to hardware accelerated canvases.
+ * When drawn on a software canvas (for instance, a shared element
+ * snapshot), a {@link BitmapShader} is used instead.
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+final class OutlineRenderer extends TransitionRenderer {
+
+    private final Matrix mMatrix = new Matrix();
+
+    // Computed from the view's current state: the outline is rebuilt before the view is drawn
+    private final TransitionGeometry mOutlineGeometry = new TransitionGeometry();
+
+    private final ViewOutlineProvider mOutlineProvider = new ViewOutlineProvider() {
+        @Override
+        public void getOutline(View view, Outline outline) {
+            mOutlineGeometry.computeBoundsIfChanged(view.getWidth(), view.getHeight(),
+                    view.getPaddingLeft(), view.getPaddingTop(),
+                    view.getPaddingRight(), view.getPaddingBottom(),
+                    ((TransitionImageView) view).getRoundingProgress());
+
+            outline.setRoundRect(Math.round(mOutlineGeometry.left), Math.round(mOutlineGeometry.top),
+                    Math.round(mOutlineGeometry.right), Math.round(mOutlineGeometry.bottom),
+                    mOutlineGeometry.radius);
+        }
+    };
+
+    private View mView;
+
+    // Restored when this renderer is removed
+    private ViewOutlineProvider mPreviousOutlineProvider;
+    private boolean mPreviousClipToOutline;
+
+    // Only created if we're drawn on a software canvas
+    private BitmapShader mFallbackShader;
+
+    OutlineRenderer(Paint paint) {
+        super(paint);
+    }
+
+    @Override
+    void attach(View view) {
+        mView = view;
+        mPreviousOutlineProvider = view.getOutlineProvider();
+        mPreviousClipToOutline = view.getClipToOutline();
+
+        view.setOutlineProvider(mOutlineProvider);
+        view.setClipToOutline(true);
+    }
+
+    @Override
+    void detach(View view) {
+        view.setClipToOutline(mPreviousClipToOutline);
+        view.setOutlineProvider(mPreviousOutlineProvider);
+
+        mPreviousOutlineProvider = null;
+        mView = null;
+    }
+
+    @Override
+    void setBitmap(Bitmap bitmap) {
+        super.setBitmap(bitmap);
+        mFallbackShader = null;
+    }
+
+    @Override
+    void onBoundsChanged() {
+        if (mView != null) {
+            mView.invalidateOutline();
+        }
+    }
+
+    @Override
+    void setShaderMatrix(Matrix matrix) {
+        mMatrix.set(matrix);
+    }
+
+    @Override
+    void draw(Canvas canvas) {
+        if (mBitmap == null) {
+            return;
+        }
+
+        if (canvas.isHardwareAccelerated()) {
+            canvas.drawBitmap(mBitmap, mMatrix, mPaint);
+            return;
+        }
+
+        if (mFallbackShader == null) {
+            mFallbackShader = new BitmapShader(mBitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+        }
+
+        mFallbackShader.setLocalMatrix(mMatrix);
+        mPaint.setShader(mFallbackShader);
+        canvas.drawRoundRect(mRect, mRadius, mRadius, mPaint);
+        mPaint.setShader(null);
+    }
+
+    @Override
+    void release() {
+        super.release();
+        mFallbackShader = null;
+    }
+}
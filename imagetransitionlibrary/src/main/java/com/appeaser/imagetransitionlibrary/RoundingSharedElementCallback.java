@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.support.v4.app.SharedElementCallback;
+import android.view.View;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link SharedElementCallback} that sets start & end rounding on shared
+ * {@link TransitionImageView}s. Rounding targets are looked up by transition
+ * name, falling back to an optional default for names without their own targets.
+ *
+ * Shared elements are visited by index - `sharedElementNames` & `sharedElements`
+ * are index-aligned - so no iterators are allocated per callback.
+ *
+ * See {@link ImageTransitionUtil} for how these values are used.
+ */
+class RoundingSharedElementCallback extends SharedElementCallback {
+
+    /**
+     * Start & end rounding for a single shared element.
+     */
+    static final class RoundingTargets {
+
+        final float mStartValue;
+        final float mEndValue;
+
+        RoundingTargets(float startValue, float endValue) {
+            mStartValue = startValue;
+            mEndValue = endValue;
+        }
+    }
+
+    private final Map<String, RoundingTargets> mTargets;
+    private final RoundingTargets mDefaultTargets;
+
+    /**
+     * @param targets rounding targets keyed by transition name; copied
+     * @param defaultTargets targets for names not in `targets`; `null` to leave those alone
+     */
+    RoundingSharedElementCallback(Map<String, RoundingTargets> targets, RoundingTargets defaultTargets) {
+        mTargets = new HashMap<String, RoundingTargets>(targets);
+        mDefaultTargets = defaultTargets;
+    }
+
+    @Override
+    public void onSharedElementStart(List<String> sharedElementNames,
+                                     List<View> sharedElements, List<View> sharedElementSnapshots) {
+        super.onSharedElementStart(sharedElementNames, sharedElements, sharedElementSnapshots);
+
+        int count = Math.min(sharedElementNames.size(), sharedElements.size());
+
+        for (int i = 0; i < count; i++) {
+            View sharedElement = sharedElements.get(i);
+
+            if (!(sharedElement instanceof TransitionImageView)) {
+                continue;
+            }
+
+            RoundingTargets targets = getTargets(sharedElementNames.get(i));
+
+            if (targets != null) {
+                // this value is retrieved in `ImageTransition#captureStartValues(TransitionValues)`
+                // when entering the second `Activity`.
+
+                // while exiting from from second `Activity`, this value is retrieved
+                // in `ImageTransition#captureEndValues(TransitionValues)`.
+                ((TransitionImageView) sharedElement).setRoundingProgress(targets.mStartValue);
+            }
+        }
+    }
+
+    @Override
+    public void onSharedElementEnd(List<String> sharedElementNames,
+                                   List<View> sharedElements, List<View> sharedElementSnapshots) {
+        super.onSharedElementEnd(sharedElementNames, sharedElements, sharedElementSnapshots);
+
+        int count = Math.min(sharedElementNames.size(), sharedElements.size());
+
+        for (int i = 0; i < count; i++) {
+            View sharedElement = sharedElements.get(i);
+
+            if (!(sharedElement instanceof TransitionImageView)) {
+                continue;
+            }
+
+            RoundingTargets targets = getTargets(sharedElementNames.get(i));
+            TransitionImageView tiv = (TransitionImageView) sharedElement;
+
+            // this value is retrieved in `ImageTransition#captureEndValues(TransitionValues)`
+            // when entering the second `Activity`.
+
+            // while exiting from from second `Activity`, this value is retrieved
+            // in `ImageTransition#captureStartValues(TransitionValues)`.
+
+            // Note that we only set this value when entering (checked by the if-condition below)
+            // the second `Activity`.
+            // In case the user exits the second `Activity` before the transition completes,
+            // we would like to transition from the current amount of rounding, rather
+            // than the end value.
+            if (targets != null && tiv.getRoundingProgress() == targets.mStartValue) {
+                tiv.setRoundingProgress(targets.mEndValue);
+            }
+        }
+    }
+
+    private RoundingTargets getTargets(String transitionName) {
+        RoundingTargets targets = mTargets.get(transitionName);
+        return targets != null ? targets : mDefaultTargets;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Shader;
+
+/**
+ * Fills the rounded rect using a {@link BitmapShader}. This is
+ * how CircleImageView draws, and works on all canvases. The shader
+ * matrix has to be updated whenever the geometry changes.
+ */
+final class ShaderRenderer extends TransitionRenderer {
+
+    private BitmapShader mShader;
+
+    ShaderRenderer(Paint paint) {
+        super(paint);
+    }
+
+    @Override
+    void setBitmap(Bitmap bitmap) {
+        super.setBitmap(bitmap);
+
+        mShader = bitmap != null
+                ? new BitmapShader(bitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP) : null;
+        mPaint.setShader(mShader);
+    }
+
+    @Override
+    void setShaderMatrix(Matrix matrix) {
+        if (mShader != null) {
+            mShader.setLocalMatrix(matrix);
+        }
+    }
+
+    @Override
+    void draw(Canvas canvas) {
+        if (mShader == null) {
+            return;
+        }
+
+        canvas.drawRoundRect(mRect, mRadius, mRadius, mPaint);
+    }
+
+    @Override
+    void release() {
+        setBitmap(null);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+/**
+ * Holds the geometry {@link TransitionImageView} draws with:
+ * the rounded rect, its corner radius and the scale/translation
+ * applied to the bitmap shader.
+ *
+ * Everything is computed on primitive fields so that it can
+ * be re-run on every animation frame without allocating.
+ */
+final class TransitionGeometry {
+
+    // Rounded rect that is drawn
+    float left;
+    float top;
+    float right;
+    float bottom;
+
+    // Corner radius of the rounded rect
+    float radius;
+
+    // Shader transformation: scale, followed by translation
+    float scale;
+    float translateX;
+    float translateY;
+
+    // Pixel bounds that need to be redrawn when changing between two geometries
+    int dirtyLeft;
+    int dirtyTop;
+    int dirtyRight;
+    int dirtyBottom;
+
+    // Inputs of the bounds last computed; `mWidth` is `-1` when there are none
+    private int mWidth = -1;
+    private int mHeight;
+    private int mPaddingLeft;
+    private int mPaddingTop;
+    private int mPaddingRight;
+    private int mPaddingBottom;
+    private float mRoundingProgress;
+
+    /**
+     * Computes the rounded rect & its corner radius for the given view dimensions.
+     *
+     * @param width view width
+     * @param height view height
+     * @param paddingLeft left padding
+     * @param paddingTop top padding
+     * @param paddingRight right padding
+     * @param paddingBottom bottom padding
+     * @param roundingProgress rounding to apply; in range [0f,1f]
+     */
+    void computeBounds(int width, int height, int paddingLeft, int paddingTop,
+                       int paddingRight, int paddingBottom, float roundingProgress) {
+        mWidth = width;
+        mHeight = height;
+        mPaddingLeft = paddingLeft;
+        mPaddingTop = paddingTop;
+        mPaddingRight = paddingRight;
+        mPaddingBottom = paddingBottom;
+        mRoundingProgress = roundingProgress;
+
+        radius = width / 2f * roundingProgress;
+
+        int availableWidth  = width - paddingLeft - paddingRight;
+        int availableHeight = height - paddingTop - paddingBottom;
+
+        int sideLengthHor = (int)(availableWidth
+                + roundingProgress * (Math.min(availableWidth, availableHeight) - availableWidth));
+        int sideLengthVer = (int)(availableHeight
+                + roundingProgress * (Math.min(availableWidth, availableHeight) - availableHeight));
+
+        left = paddingLeft + (availableWidth - sideLengthHor) / 2f;
+        top = paddingTop + (availableHeight - sideLengthVer) / 2f;
+        right = left + sideLengthHor;
+        bottom = top + sideLengthVer;
+    }
+
+    /**
+     * Same as {@link #computeBounds(int, int, int, int, int, int, float)},
+     * but does nothing if the bounds were last computed for the same input.
+     * This is the common case when an image is replaced, e.g. when
+     * a recycled list item is bound to a new one.
+     *
+     * @param width view width
+     * @param height view height
+     * @param paddingLeft left padding
+     * @param paddingTop top padding
+     * @param paddingRight right padding
+     * @param paddingBottom bottom padding
+     * @param roundingProgress rounding to apply; in range [0f,1f]
+     * @return `true` if the bounds were recomputed
+     */
+    boolean computeBoundsIfChanged(int width, int height, int paddingLeft, int paddingTop,
+                                   int paddingRight, int paddingBottom, float roundingProgress) {
+        if (width == mWidth && height == mHeight
+                && paddingLeft == mPaddingLeft && paddingTop == mPaddingTop
+                && paddingRight == mPaddingRight && paddingBottom == mPaddingBottom
+                && roundingProgress == mRoundingProgress) {
+            return false;
+        }
+
+        computeBounds(width, height, paddingLeft, paddingTop, paddingRight, paddingBottom, roundingProgress);
+        return true;
+    }
+
+    /**
+     * Forgets the input of the bounds last computed, so that the next call to
+     * {@link #computeBoundsIfChanged(int, int, int, int, int, int, float)} recomputes them.
+     */
+    void invalidateBounds() {
+        mWidth = -1;
+    }
+
+    /**
+     * Returns whether bounds have been computed, and not invalidated since.
+     *
+     * @return `true` if the bounds are valid
+     */
+    boolean hasBounds() {
+        return mWidth != -1;
+    }
+
+    /**
+     * Returns whether the rounded rect or its corner radius differ from
+     * those of `other` by half a pixel or more - i.e. whether drawing with
+     * either would give a visibly different result.
+     *
+     * @param other geometry to compare against
+     * @return `true` if the bounds differ visibly
+     */
+    boolean boundsDifferVisibly(TransitionGeometry other) {
+        return Math.abs(left - other.left) >= 0.5f
+                || Math.abs(top - other.top) >= 0.5f
+                || Math.abs(right - other.right) >= 0.5f
+                || Math.abs(bottom - other.bottom) >= 0.5f
+                || Math.abs(radius - other.radius) >= 0.5f;
+    }
+
+    /**
+     * Computes the pixel bounds covering both this rounded rect &
+     * that of `other` - the area that changes when going from one to
+     * the other. Includes a pixel of slack for anti-aliased edges.
+     *
+     * @param other geometry being changed from, or to
+     */
+    void computeDirtyBounds(TransitionGeometry other) {
+        dirtyLeft = (int) Math.floor(Math.min(left, other.left)) - 1;
+        dirtyTop = (int) Math.floor(Math.min(top, other.top)) - 1;
+        dirtyRight = (int) Math.ceil(Math.max(right, other.right)) + 1;
+        dirtyBottom = (int) Math.ceil(Math.max(bottom, other.bottom)) + 1;
+    }
+
+    /**
+     * Returns the scale at which a bitmap of the given size
+     * exactly covers the target area using 'centerCrop'.
+     *
+     * @param bitmapWidth width of the bitmap
+     * @param bitmapHeight height of the bitmap
+     * @param targetWidth width of the area to cover
+     * @param targetHeight height of the area to cover
+     * @return scale to apply to the bitmap
+     */
+    static float centerCropScale(int bitmapWidth, int bitmapHeight, int targetWidth, int targetHeight) {
+        return Math.max(targetWidth / (float) bitmapWidth, targetHeight / (float) bitmapHeight);
+    }
+
+    /**
+     * Computes the 'centerCrop' transformation that maps a bitmap
+     * of the given size onto the current bounds.
+     * {@link #computeBounds(int, int, int, int, int, int, float)}
+     * must be called first.
+     *
+     * @param bitmapWidth width of the bitmap
+     * @param bitmapHeight height of the bitmap
+     */
+    void computeShaderTransform(int bitmapWidth, int bitmapHeight) {
+        float width = right - left;
+        float height = bottom - top;
+        float dx = 0;
+        float dy = 0;
+
+        if (bitmapWidth * height > width * bitmapHeight) {
+            scale = height / (float) bitmapHeight;
+            dx = (width - bitmapWidth * scale) * 0.5f;
+        } else {
+            scale = width / (float) bitmapWidth;
+            dy = (height - bitmapHeight * scale) * 0.5f;
+        }
+
+        translateX = (int) (dx + 0.5f) + left;
+        translateY = (int) (dy + 0.5f) + top;
+    }
+}
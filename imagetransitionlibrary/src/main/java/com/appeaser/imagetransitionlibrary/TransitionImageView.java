@@ -32,24 +32,30 @@
 
 package com.appeaser.imagetransitionlibrary;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
-import android.graphics.BitmapShader;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
 import android.graphics.Matrix;
 import android.graphics.Paint;
+import android.graphics.PixelFormat;
 import android.graphics.RectF;
-import android.graphics.Shader;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
+import android.os.Build;
 import android.support.annotation.DrawableRes;
+import android.support.v4.os.TraceCompat;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.util.Property;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.ImageView;
 
 /**
@@ -73,20 +79,52 @@ import android.widget.ImageView;
  *  - No 'disable' option - use {@link TransitionImageView#setRoundingProgress(float)}
  *    with RoundingProgress#MIN#progressValue() instead
  */
-public class TransitionImageView extends ImageView {
+public class TransitionImageView extends ImageView implements ImageSizeHint {
 
     private static final ScaleType SCALE_TYPE = ScaleType.CENTER_CROP;
 
     private static final Bitmap.Config BITMAP_CONFIG = Bitmap.Config.ARGB_8888;
-    private static final int COLORDRAWABLE_DIMENSION = 2;
+
+    // Values of `tiv_bitmapConfig`
+    private static final int ATTR_BITMAP_CONFIG_ARGB_8888 = 0;
+    private static final int ATTR_BITMAP_CONFIG_RGB_565 = 1;
+    private static final int ATTR_BITMAP_CONFIG_ALPHA_8 = 2;
+
+    // Section names, as shown in systrace
+    private static final String TRACE_ON_DRAW = "TransitionImageView#onDraw";
+    private static final String TRACE_RESOLVE_GEOMETRY = "TransitionImageView#resolveGeometry";
+    private static final String TRACE_INITIALIZE_BITMAP = "TransitionImageView#initializeBitmap";
+    private static final String TRACE_GET_BITMAP_FROM_DRAWABLE = "TransitionImageView#getBitmapFromDrawable";
 
     private final RectF mDrawableRect = new RectF();
+    private final TransitionGeometry mGeometry = new TransitionGeometry();
+
+    // Geometry a change would result in; compared against `mGeometry`
+    private final TransitionGeometry mCandidateGeometry = new TransitionGeometry();
+
+    // Number of changes that were not redrawn, being less than half a pixel
+    private int mSkippedFrameCount;
 
     private final Matrix mShaderMatrix = new Matrix();
     private final Paint mBitmapPaint = new Paint();
 
+    // Solid colors are drawn directly, without a bitmap or shader
+    private final Paint mColorPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private ColorDrawable mColorDrawable;
+
+    // Bitmap drawn by the shader: either `mSourceBitmap`,
+    // or a downsampled copy of it (see `setDownsamplingEnabled(boolean)`)
     private Bitmap mBitmap;
-    private BitmapShader mBitmapShader;
+    private Bitmap mSourceBitmap;
+
+    // `true` if `mSourceBitmap` was rasterized by this view, and
+    // should be handed back to the BitmapPool once it's no longer used
+    private boolean mOwnsSourceBitmap;
+
+    // `true` while bitmaps are dropped, from detaching or recycling until the
+    // view is attached, its window is shown again, or it's bound to another image
+    private boolean mBitmapsReleased;
+
     private int mBitmapWidth;
     private int mBitmapHeight;
 
@@ -95,6 +133,11 @@ public class TransitionImageView extends ImageView {
     private boolean mReady;
     private boolean mSetupPending;
 
+    // Geometry is resolved lazily in `onDraw(Canvas)`, at most once per frame.
+    // `mShaderDirty` additionally requires the bitmap to be passed to the renderer.
+    private boolean mGeometryDirty;
+    private boolean mShaderDirty;
+
     // Changes
 
     // Common use cases
@@ -123,12 +166,96 @@ public class TransitionImageView extends ImageView {
         private float mProgressValue;
     }
 
+    // How the rounded bitmap is drawn
+    public enum RenderMode {
+
+        // OUTLINE on API 21 and above, SHADER otherwise.
+        // Unlike SHADER, this also clips the view's background.
+        AUTO,
+
+        // Fills the rounded rect using a BitmapShader
+        SHADER,
+
+        // API 21+: clips this view to a rounded outline. Only
+        // the outline changes per frame. Falls back to SHADER below API 21
+        OUTLINE,
+
+        // Masks the bitmap using a cached bitmap of the rounded rect.
+        // Suited to software rendering
+        MASK
+    }
+
+    // Requested & current means of drawing
+    private RenderMode mRenderMode;
+    private TransitionRenderer mRenderer;
+
     // Amount of rounding to apply
     private float mRoundingProgress;
 
+    // Rounding this view was created with; restored by `recycle()`
+    private float mInitialRoundingProgress;
+
     // Used while drawing to the canvas
     private float mRoundedRadius;
 
+    // When enabled, `mBitmap` is a copy of `mSourceBitmap`
+    // scaled down to the largest size this view has been laid out at
+    private boolean mDownsamplingEnabled;
+    private int mMaxAvailableWidth;
+    private int mMaxAvailableHeight;
+
+    // Config used when rasterizing non-bitmap drawables; `null` implies BITMAP_CONFIG.
+    // Not initialized in-place: drawables can be set from within the super constructor.
+    private Bitmap.Config mBitmapConfig;
+
+    // When `true`, opaque drawables are rasterized using RGB_565
+    private boolean mOpaqueConfigAllowed;
+
+    // When enabled, transitions switch to cheaper paint flags
+    // once `mFrameTimeMonitor` sees frames going over budget
+    private boolean mAdaptiveQualityEnabled;
+    private FrameTimeMonitor mFrameTimeMonitor;
+
+    // When enabled, transitions draw from the level of `mMipChain`
+    // nearest the current scale; `mMipLevel` is the level in use
+    private boolean mMipmapsEnabled;
+    private MipChain mMipChain;
+    private int mMipLevel;
+
+    // Smallest size (excluding padding) the transitions about to start animate this
+    // view to; the levels they need are built before the first frame is drawn
+    private int mMinTransitionWidth;
+    private int mMinTransitionHeight;
+
+    // When `true`, `setImageURI(Uri)` & `setImageResource(int)` decode on a background thread
+    private boolean mAsyncDecodeEnabled;
+    private ImageDecodeRequest mDecodeRequest;
+
+    // Number of ImageTransition animators currently running on this view
+    private int mRunningTransitions;
+
+    // Number of transitions expected to run on this view that haven't ended yet,
+    // counted from when their values are captured (or their start is postponed)
+    private int mPendingTransitions;
+    private TransitionAnimatorListener mTransitionListener;
+
+    // Metrics of the running transition; `null` unless a listener is set
+    private TransitionMetricsListener mMetricsListener;
+    private TransitionMetricsListener mTransitionMetricsListener;
+    private TransitionMetrics mMetrics;
+    private long mCaptureNanos;
+
+    // Records every frame drawn; `null` unless set
+    private TransitionTraceRecorder mTraceRecorder;
+
+    // Full resolution image that replaces `mPendingThumbnail` once
+    // the running transitions have ended
+    private Drawable mPendingDrawable;
+    private Drawable mPendingThumbnail;
+
+    // Set while swapping in `mPendingDrawable`
+    private boolean mLayoutSuppressed;
+
     // Exposed property that is animated by ObjectAnimator
     public static final Property<View, Float> ROUNDING_PROGRESS_PROPERTY
             = new Property<View, Float>(Float.class, "roundingProgress") {
@@ -163,20 +290,47 @@ public class TransitionImageView extends ImageView {
         mRoundingProgress = constrain(a.getFloat(R.styleable.TransitionImageView_tiv_rounding,
                 RoundingProgress.MAX.progressValue()), RoundingProgress.MIN.progressValue(),
                 RoundingProgress.MAX.progressValue());
+        mDownsamplingEnabled = a.getBoolean(R.styleable.TransitionImageView_tiv_downsample, false);
+        mBitmapConfig = bitmapConfigFromAttr(a.getInt(R.styleable.TransitionImageView_tiv_bitmapConfig,
+                ATTR_BITMAP_CONFIG_ARGB_8888));
+        mOpaqueConfigAllowed = a.getBoolean(R.styleable.TransitionImageView_tiv_allowRgb565, false);
+        mRenderMode = RenderMode.values()[a.getInt(R.styleable.TransitionImageView_tiv_renderMode,
+                RenderMode.AUTO.ordinal())];
+        mAsyncDecodeEnabled = a.getBoolean(R.styleable.TransitionImageView_tiv_asyncDecode, false);
+        mMipmapsEnabled = a.getBoolean(R.styleable.TransitionImageView_tiv_mipmaps, false);
+        mAdaptiveQualityEnabled = a.getBoolean(R.styleable.TransitionImageView_tiv_adaptiveQuality, false);
 
         a.recycle();
 
+        if (getDrawable() != null && (mBitmapConfig != BITMAP_CONFIG || mOpaqueConfigAllowed)) {
+            // drawable was rasterized by the super constructor using the default config
+            initializeBitmap();
+        }
+
         init();
     }
 
     private void init() {
         super.setScaleType(SCALE_TYPE);
+        mInitialRoundingProgress = mRoundingProgress;
+
+        if (mRenderMode == null) {
+            mRenderMode = RenderMode.AUTO;
+        }
+
+        installRenderer();
         mReady = true;
 
         if (mSetupPending) {
             setup();
             mSetupPending = false;
         }
+
+        // transition name is set while inflating
+        adoptHandoffBitmap();
+
+        BitmapMemoryAccounting.getInstance().register(this);
+        MemoryTrimCallbacks.register(getContext());
     }
 
     @Override
@@ -200,51 +354,180 @@ public class TransitionImageView extends ImageView {
 
     @Override
     protected void onDraw(Canvas canvas) {
-        if (mBitmap == null) {
+        TraceCompat.beginSection(TRACE_ON_DRAW);
+
+        try {
+            drawImage(canvas);
+        } finally {
+            TraceCompat.endSection();
+        }
+    }
+
+    private void drawImage(Canvas canvas) {
+        if (mBitmap == null && mColorDrawable == null) {
+            return;
+        }
+
+        // only timed while a listener or recorder is interested
+        TransitionMetrics metrics = mMetrics;
+        TransitionTraceRecorder recorder = mTraceRecorder;
+        boolean timed = metrics != null || recorder != null;
+        long frameStartNanos = timed ? System.nanoTime() : 0;
+
+        TraceCompat.beginSection(TRACE_RESOLVE_GEOMETRY);
+
+        try {
+            resolveGeometry();
+        } finally {
+            TraceCompat.endSection();
+        }
+
+        if (mGeometryDirty) {
+            // nothing to draw yet
+            return;
+        }
+
+        long setupEndNanos = timed ? System.nanoTime() : 0;
+
+        if (mAdaptiveQualityEnabled && mRunningTransitions > 0) {
+            monitorFrameTime();
+        }
+
+        if (mColorDrawable != null) {
+            // picked up here, since the ColorDrawable's color can change without a call to `setImage*`
+            mColorPaint.setColor(mColorDrawable.getColor());
+            canvas.drawRoundRect(mDrawableRect, mRoundedRadius, mRoundedRadius, mColorPaint);
+        } else {
+            mRenderer.draw(canvas);
+        }
+
+        if (!timed) {
+            return;
+        }
+
+        long drawEndNanos = System.nanoTime();
+
+        if (metrics != null) {
+            metrics.onFrame(frameStartNanos, setupEndNanos, drawEndNanos);
+        }
+
+        if (recorder != null) {
+            recorder.record(System.identityHashCode(this), frameStartNanos, setupEndNanos, drawEndNanos,
+                    mRoundingProgress, mDrawableRect.left, mDrawableRect.top,
+                    mDrawableRect.right, mDrawableRect.bottom);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+
+        // e.g. recycled, then shown again without being bound to another image
+        restoreBitmaps();
+        adoptHandoffBitmap();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+
+        if (visibility == GONE) {
+            // e.g. an Activity on the back stack - its views stay attached
+            if (mRunningTransitions == 0) {
+                releaseBitmaps();
+            }
+        } else if (visibility == VISIBLE) {
+            restoreBitmaps();
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        if (mLayoutSuppressed) {
+            // the full resolution image doesn't change this view's size
             return;
         }
 
-        canvas.drawRoundRect(mDrawableRect, mRoundedRadius, mRoundedRadius, mBitmapPaint);
+        super.requestLayout();
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public void setTransitionName(String transitionName) {
+        super.setTransitionName(transitionName);
+
+        // called from `View`'s constructor while inflating - handled in `init()`
+        if (mReady) {
+            adoptHandoffBitmap();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        releaseBitmaps();
     }
 
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
-        setup();
+
+        if (isSubPixelChange(w, h)) {
+            skipFrame();
+        } else {
+            onBoundsChanged();
+        }
+        submitDecodeRequest();
     }
 
     @Override
     public void setPadding(int left, int top, int right, int bottom) {
         super.setPadding(left, top, right, bottom);
-        setup();
+        onBoundsChanged();
     }
 
     @Override
     public void setPaddingRelative(int start, int top, int end, int bottom) {
         super.setPaddingRelative(start, top, end, bottom);
-        setup();
+        onBoundsChanged();
     }
 
     @Override
     public void setImageBitmap(Bitmap bm) {
+        cancelDecodeRequest();
         super.setImageBitmap(bm);
         initializeBitmap();
     }
 
     @Override
     public void setImageDrawable(Drawable drawable) {
+        cancelDecodeRequest();
         super.setImageDrawable(drawable);
         initializeBitmap();
     }
 
     @Override
     public void setImageResource(@DrawableRes int resId) {
+        cancelDecodeRequest();
+
+        if (mAsyncDecodeEnabled && resId != 0) {
+            decodeAsync(ImageDecodeRequest.forResource(this, resId));
+            return;
+        }
+
         super.setImageResource(resId);
         initializeBitmap();
     }
 
     @Override
     public void setImageURI(Uri uri) {
+        cancelDecodeRequest();
+
+        if (mAsyncDecodeEnabled && uri != null) {
+            decodeAsync(ImageDecodeRequest.forUri(this, uri));
+            return;
+        }
+
         super.setImageURI(uri);
         initializeBitmap();
     }
@@ -269,6 +552,10 @@ public class TransitionImageView extends ImageView {
         if (mBitmapPaint != null) {
             mBitmapPaint.setColorFilter(mColorFilter);
         }
+
+        if (mColorPaint != null) {
+            mColorPaint.setColorFilter(mColorFilter);
+        }
     }
 
     private Bitmap getBitmapFromDrawable(Drawable drawable) {
@@ -281,21 +568,31 @@ public class TransitionImageView extends ImageView {
         }
 
         try {
-            Bitmap bitmap;
+            int width = drawable.getIntrinsicWidth();
+            int height = drawable.getIntrinsicHeight();
 
-            if (drawable instanceof ColorDrawable) {
-                bitmap = Bitmap.createBitmap(COLORDRAWABLE_DIMENSION, COLORDRAWABLE_DIMENSION, BITMAP_CONFIG);
-            } else {
-                if (drawable.getIntrinsicWidth() <= 0 || drawable.getIntrinsicHeight() <= 0) {
-                    return null;
-                }
+            if (width <= 0 || height <= 0) {
+                return null;
+            }
+
+            Bitmap.Config config = getRasterConfig(drawable);
 
-                bitmap = Bitmap.createBitmap(drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight(), BITMAP_CONFIG);
+            // drawables sharing a ConstantState are only rasterized once,
+            // unless their look depends on per-instance state
+            if (!DrawableBitmapCache.isCacheable(drawable)) {
+                mOwnsSourceBitmap = true;
+                return rasterize(drawable, BitmapPool.getInstance().obtain(width, height, config));
+            }
+
+            DrawableBitmapCache cache = DrawableBitmapCache.getInstance();
+            Bitmap bitmap = cache.get(drawable, width, height, config);
+
+            if (bitmap == null) {
+                // once cached, the bitmap is shared - it never goes back to the pool
+                bitmap = rasterize(drawable, BitmapPool.getInstance().obtain(width, height, config));
+                cache.put(drawable, width, height, config, bitmap);
             }
 
-            Canvas canvas = new Canvas(bitmap);
-            drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
-            drawable.draw(canvas);
             return bitmap;
         } catch (Exception e) {
             e.printStackTrace();
@@ -303,112 +600,1262 @@ public class TransitionImageView extends ImageView {
         }
     }
 
+    /**
+     * Returns the config to rasterize the given drawable with.
+     *
+     * @param drawable drawable to rasterize
+     * @return RGB_565 for opaque drawables if allowed, else the configured value
+     */
+    private Bitmap.Config getRasterConfig(Drawable drawable) {
+        if (mOpaqueConfigAllowed && drawable.getOpacity() == PixelFormat.OPAQUE) {
+            return Bitmap.Config.RGB_565;
+        }
+
+        return mBitmapConfig != null ? mBitmapConfig : BITMAP_CONFIG;
+    }
+
+    private static Bitmap.Config bitmapConfigFromAttr(int value) {
+        switch (value) {
+            case ATTR_BITMAP_CONFIG_RGB_565:
+                return Bitmap.Config.RGB_565;
+            case ATTR_BITMAP_CONFIG_ALPHA_8:
+                return Bitmap.Config.ALPHA_8;
+            default:
+                return BITMAP_CONFIG;
+        }
+    }
+
+    private Bitmap rasterize(Drawable drawable, Bitmap bitmap) {
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
+        drawable.draw(canvas);
+        return bitmap;
+    }
+
     private void initializeBitmap() {
-        mBitmap = getBitmapFromDrawable(getDrawable());
+        TraceCompat.beginSection(TRACE_INITIALIZE_BITMAP);
+
+        try {
+            releaseOwnedBitmaps();
+            mBitmapsReleased = false;
+
+            Drawable drawable = getDrawable();
+
+            if (drawable instanceof ColorDrawable) {
+                // drawn using `mColorPaint` - no bitmap required
+                mColorDrawable = (ColorDrawable) drawable;
+                setup();
+                return;
+            }
+
+            mColorDrawable = null;
+            TraceCompat.beginSection(TRACE_GET_BITMAP_FROM_DRAWABLE);
+
+            try {
+                mSourceBitmap = getBitmapFromDrawable(drawable);
+            } finally {
+                TraceCompat.endSection();
+            }
+
+            mBitmap = mSourceBitmap;
+            setup();
+        } finally {
+            TraceCompat.endSection();
+        }
+    }
+
+    /**
+     * Returns whether this view has an image to draw and has been laid out.
+     * See {@link EnterTransitionPostponer}.
+     *
+     * @return `true` if a transition can start from or to this view
+     */
+    boolean isReadyForTransition() {
+        return (mSourceBitmap != null || mColorDrawable != null)
+                && getWidth() > 0 && getHeight() > 0;
+    }
+
+    /**
+     * Returns the bitmap this view draws from, if it may be shown by other
+     * views - i.e. if this view didn't rasterize it itself.
+     * See {@link BitmapHandoff}.
+     *
+     * @return bitmap that can be shared, or `null`
+     */
+    Bitmap getShareableBitmap() {
+        return mColorDrawable == null && !mOwnsSourceBitmap ? mSourceBitmap : null;
+    }
+
+    /**
+     * Shows the bitmap published to the {@link BitmapHandoff} under
+     * this view's transition name, if this view has no image of its own -
+     * neither shown, nor being decoded.
+     */
+    private void adoptHandoffBitmap() {
+        if (getDrawable() != null || mDecodeRequest != null) {
+            // adopting would replace (and cancel) the requested image
+            return;
+        }
+
+        Bitmap bitmap = BitmapHandoff.getInstance().take(ViewCompat.getTransitionName(this));
+
+        if (bitmap != null) {
+            setImageBitmap(bitmap);
+        }
+    }
+
+    /**
+     * Drops all references to bitmaps & the shaders drawing them,
+     * handing owned bitmaps back to the {@link BitmapPool}.
+     * {@link #restoreBitmaps()} rebuilds them once this view is attached, or its
+     * window is shown again - never while drawing.
+     */
+    private void releaseBitmaps() {
+        releaseOwnedBitmaps();
+
+        // borrowed bitmaps are taken from the drawable or the DrawableBitmapCache
+        // again - not holding on to them lets the cache free them when trimmed
+        mSourceBitmap = null;
+        mBitmap = null;
+
+        if (mRenderer != null) {
+            mRenderer.release();
+        }
+
+        mBitmapsReleased = true;
         setup();
     }
 
+    /**
+     * Rebuilds the bitmap dropped by {@link #releaseBitmaps()}, if any.
+     */
+    private void restoreBitmaps() {
+        if (mBitmapsReleased) {
+            initializeBitmap();
+        }
+    }
+
+    /**
+     * Hands bitmaps rasterized by this view back to the {@link BitmapPool}.
+     * Bitmaps borrowed from a {@link BitmapDrawable} or from
+     * the {@link DrawableBitmapCache} are left alone.
+     */
+    private void releaseOwnedBitmaps() {
+        releaseMipChain();
+
+        BitmapPool pool = BitmapPool.getInstance();
+
+        if (mBitmap != null && mBitmap != mSourceBitmap) {
+            // downsampled copy
+            pool.put(mBitmap);
+        }
+
+        if (mOwnsSourceBitmap) {
+            pool.put(mSourceBitmap);
+            mSourceBitmap = null;
+            mOwnsSourceBitmap = false;
+        }
+
+        mBitmap = mSourceBitmap;
+
+        if (mRenderer != null) {
+            mRenderer.setBitmap(null);
+        }
+    }
+
     private void setup() {
         if (!mReady) {
             mSetupPending = true;
             return;
         }
 
+        // the bitmap has changed
+        mShaderDirty = true;
+        invalidateGeometry();
+    }
+
+    /**
+     * Marks the rounded rect, corner radius & shader matrix as stale.
+     * They are recomputed once, in the next call to `onDraw(Canvas)`,
+     * no matter how many properties change before that.
+     */
+    private void invalidateGeometry() {
+        mGeometryDirty = true;
+        invalidate();
+    }
+
+    private void resolveGeometry() {
+        if (!mGeometryDirty || !mReady) {
+            return;
+        }
+
         if (getWidth() == 0 && getHeight() == 0) {
             return;
         }
 
+        if (mColorDrawable != null) {
+            // only the rounded rect is required
+            calculateBounds();
+            mGeometryDirty = false;
+            return;
+        }
+
         if (mBitmap == null) {
-            invalidate();
             return;
         }
 
-        mRoundedRadius = getWidth()/2f * mRoundingProgress;
+        if (mDownsamplingEnabled) {
+            updateDownsampledBitmap();
+        }
 
-        mBitmapShader = new BitmapShader(mBitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+        boolean bitmapChanged = mShaderDirty;
 
-        mBitmapPaint.setAntiAlias(true);
-        mBitmapPaint.setShader(mBitmapShader);
+        if (mShaderDirty) {
+            // levels of the previous bitmap are of no use
+            releaseMipChain();
 
-        mBitmapHeight = mBitmap.getHeight();
-        mBitmapWidth = mBitmap.getWidth();
+            setPaintQuality(mFrameTimeMonitor == null || !mFrameTimeMonitor.isQualityReduced());
+            mRenderer.setBitmap(mBitmap);
 
-        mDrawableRect.set(calculateBounds());
+            mBitmapHeight = mBitmap.getHeight();
+            mBitmapWidth = mBitmap.getWidth();
 
-        applyColorFilter();
-        updateShaderMatrix();
-        invalidate();
+            applyColorFilter();
+            mShaderDirty = false;
+        }
+
+        updateGeometry(bitmapChanged);
+        mGeometryDirty = false;
     }
 
-    private RectF calculateBounds() {
-        int availableWidth  = getWidth() - getPaddingLeft() - getPaddingRight();
-        int availableHeight = getHeight() - getPaddingTop() - getPaddingBottom();
+    /**
+     * Keeps `mBitmap` at the smallest size that still covers the largest
+     * area this view has been laid out at. The copy is only rebuilt
+     * when the view grows past it.
+     */
+    private void updateDownsampledBitmap() {
+        mMaxAvailableWidth = Math.max(mMaxAvailableWidth,
+                getWidth() - getPaddingLeft() - getPaddingRight());
+        mMaxAvailableHeight = Math.max(mMaxAvailableHeight,
+                getHeight() - getPaddingTop() - getPaddingBottom());
 
-        int sideLengthHor = (int)(availableWidth
-                + mRoundingProgress * (Math.min(availableWidth, availableHeight) - availableWidth));
-        int sideLengthVer = (int)(availableHeight
-                + mRoundingProgress * (Math.min(availableWidth, availableHeight) - availableHeight));
+        if (mSourceBitmap == null || mMaxAvailableWidth <= 0 || mMaxAvailableHeight <= 0) {
+            return;
+        }
 
-        float left = getPaddingLeft() + (availableWidth - sideLengthHor) / 2f;
-        float top = getPaddingTop() + (availableHeight - sideLengthVer) / 2f;
+        int sourceWidth = mSourceBitmap.getWidth();
+        int sourceHeight = mSourceBitmap.getHeight();
 
-        return new RectF(left, top, left + sideLengthHor, top + sideLengthVer);
-    }
+        float scale = TransitionGeometry.centerCropScale(sourceWidth, sourceHeight,
+                mMaxAvailableWidth, mMaxAvailableHeight);
 
-    private void updateShaderMatrix() {
-        float scale;
-        float dx = 0;
-        float dy = 0;
+        if (scale >= 1f) {
+            // no point in holding a copy that's as large as the source
+            if (mBitmap != mSourceBitmap) {
+                BitmapPool.getInstance().put(mBitmap);
+                mBitmap = mSourceBitmap;
+                mShaderDirty = true;
+            }
+            return;
+        }
 
-        mShaderMatrix.set(null);
+        int width = (int) Math.ceil(sourceWidth * scale);
+        int height = (int) Math.ceil(sourceHeight * scale);
 
-        if (mBitmapWidth * mDrawableRect.height() > mDrawableRect.width() * mBitmapHeight) {
-            scale = mDrawableRect.height() / (float) mBitmapHeight;
-            dx = (mDrawableRect.width() - mBitmapWidth * scale) * 0.5f;
-        } else {
-            scale = mDrawableRect.width() / (float) mBitmapWidth;
-            dy = (mDrawableRect.height() - mBitmapHeight * scale) * 0.5f;
+        if (mBitmap != mSourceBitmap && mBitmap.getWidth() >= width && mBitmap.getHeight() >= height) {
+            // current copy is large enough
+            return;
         }
 
-        mShaderMatrix.setScale(scale, scale);
-        mShaderMatrix.postTranslate((int) (dx + 0.5f) + mDrawableRect.left, (int) (dy + 0.5f) + mDrawableRect.top);
+        Bitmap.Config config = mSourceBitmap.getConfig() != null
+                ? mSourceBitmap.getConfig() : BITMAP_CONFIG;
+        Bitmap copy = BitmapPool.getInstance().obtain(width, height, config);
+
+        Matrix matrix = new Matrix();
+        matrix.setScale(width / (float) sourceWidth, height / (float) sourceHeight);
+        new Canvas(copy).drawBitmap(mSourceBitmap, matrix, new Paint(Paint.FILTER_BITMAP_FLAG));
+
+        if (mBitmap != mSourceBitmap) {
+            BitmapPool.getInstance().put(mBitmap);
+        }
 
-        mBitmapShader.setLocalMatrix(mShaderMatrix);
+        mBitmap = copy;
+        mShaderDirty = true;
     }
 
-    /********************* Changes *********************/
+    /**
+     * Recomputes the rounded rect, corner radius & shader matrix, and
+     * passes them on to the renderer. Nothing is allocated here,
+     * which makes this safe to call on every animation frame.
+     *
+     * When neither the view's size nor the bitmap's has changed, as
+     * when a recycled list item is bound to an image of the same size,
+     * the previous geometry is kept.
+     *
+     * @param bitmapChanged `true` if the renderer was given a new bitmap
+     */
+    private void updateGeometry(boolean bitmapChanged) {
+        boolean boundsChanged = calculateBounds();
+
+        if (boundsChanged || bitmapChanged || mMipChain != null) {
+            updateShaderMatrix();
+        }
+    }
 
     /**
-     * Governs the rounding aspect of this ImageView.
-     * Value of `0f` signifies no rounding at all.
-     * Value of `1f` signifies perfectly rounded corners.
-     * Values in-between are interpolated to provide the
-     * required rounding.
+     * Recomputes the rounded rect & corner radius, unless nothing they depend on has changed.
      *
-     * @param roundingProgress rounding value to apply; constrained in range [0f,1f]
+     * @return `true` if the bounds were recomputed
      */
-    public void setRoundingProgress(float roundingProgress) {
-        // constrain value in range [0f,1f]
-        roundingProgress = constrain(roundingProgress, RoundingProgress.MIN.progressValue(),
-                RoundingProgress.MAX.progressValue());
+    private boolean calculateBounds() {
+        if (!mGeometry.computeBoundsIfChanged(getWidth(), getHeight(), getPaddingLeft(), getPaddingTop(),
+                getPaddingRight(), getPaddingBottom(), mRoundingProgress)) {
+            return false;
+        }
 
-        if (mRoundingProgress == roundingProgress) {
-            // no change
-            return;
+        mRoundedRadius = mGeometry.radius;
+        mDrawableRect.set(mGeometry.left, mGeometry.top, mGeometry.right, mGeometry.bottom);
+
+        mRenderer.setBounds(mGeometry.left, mGeometry.top, mGeometry.right, mGeometry.bottom,
+                mGeometry.radius);
+        return true;
+    }
+
+    private void updateShaderMatrix() {
+        mGeometry.computeShaderTransform(mBitmapWidth, mBitmapHeight);
+
+        if (mMipmapsEnabled && mRunningTransitions > 0) {
+            selectMipLevel();
         }
 
-        // apply changes
-        mRoundingProgress = roundingProgress;
-        setup();
+        mShaderMatrix.setScale(mGeometry.scale, mGeometry.scale);
+        mShaderMatrix.postTranslate(mGeometry.translateX, mGeometry.translateY);
+
+        mRenderer.setShaderMatrix(mShaderMatrix);
     }
 
     /**
-     * Returns the current amount of rounding.
-     *
-     * @return current rounding amount
+     * Records the time of the current frame, and switches to cheaper
+     * paint flags once frames are going over budget.
      */
-    public float getRoundingProgress() {
-        return mRoundingProgress;
+    private void monitorFrameTime() {
+        if (mFrameTimeMonitor == null) {
+            mFrameTimeMonitor = new FrameTimeMonitor();
+        }
+
+        boolean wasReduced = mFrameTimeMonitor.isQualityReduced();
+
+        if (mFrameTimeMonitor.onFrame(System.nanoTime()) && !wasReduced) {
+            setPaintQuality(false);
+        }
+    }
+
+    /**
+     * Counts a change that isn't redrawn. Frame time isn't monitored across it:
+     * the next frame drawn comes more than one frame after the last.
+     */
+    private void skipFrame() {
+        mSkippedFrameCount++;
+
+        if (mFrameTimeMonitor != null) {
+            mFrameTimeMonitor.onFrameSkipped();
+        }
+    }
+
+    /**
+     * Returns to full quality, if it was reduced during the transition
+     * that just ended. The final frame is drawn at full quality.
+     */
+    private void restoreQuality() {
+        if (mFrameTimeMonitor != null && mFrameTimeMonitor.isQualityReduced()) {
+            mFrameTimeMonitor.reset();
+            setPaintQuality(true);
+            invalidate();
+        }
+    }
+
+    private void setPaintQuality(boolean high) {
+        mBitmapPaint.setAntiAlias(high);
+        mBitmapPaint.setFilterBitmap(high);
+        mColorPaint.setAntiAlias(high);
+    }
+
+    /**
+     * Builds the mip levels that the transitions about to start will draw from,
+     * down to the level for the smallest size they animate this view to.
+     * Nothing is built while drawing a frame.
+     */
+    private void buildMipLevels() {
+        int minWidth = mMinTransitionWidth;
+        int minHeight = mMinTransitionHeight;
+
+        mMinTransitionWidth = 0;
+        mMinTransitionHeight = 0;
+
+        if (!mMipmapsEnabled || mBitmap == null || minWidth <= 0 || minHeight <= 0) {
+            return;
+        }
+
+        if (mMipChain == null) {
+            mMipChain = new MipChain(mBitmap);
+        }
+
+        // rounding shrinks the rounded rect down to a square of the shorter side
+        int side = Math.min(minWidth, minHeight);
+        float scale = TransitionGeometry.centerCropScale(mBitmap.getWidth(), mBitmap.getHeight(), side, side);
+
+        mMipChain.getLevel(MipChain.levelForScale(scale, mMipChain.getLevelCount()));
+    }
+
+    /**
+     * Switches the renderer over to the mip level nearest the scale
+     * just computed, and recomputes the transformation for that level.
+     * Only levels built by {@link #buildMipLevels()} are used.
+     */
+    private void selectMipLevel() {
+        if (mMipChain == null) {
+            return;
+        }
+
+        int level = Math.min(MipChain.levelForScale(mGeometry.scale, mMipChain.getLevelCount()),
+                mMipChain.getBuiltLevelCount() - 1);
+
+        if (level != mMipLevel) {
+            mMipLevel = level;
+            mRenderer.setBitmap(mMipChain.getLevel(level));
+        }
+
+        if (level > 0) {
+            mGeometry.computeShaderTransform(MipChain.levelSize(mBitmapWidth, level),
+                    MipChain.levelSize(mBitmapHeight, level));
+        }
+    }
+
+    /**
+     * Hands mip levels back to the {@link BitmapPool}, and
+     * returns the renderer to the full resolution bitmap.
+     * Doesn't invalidate, as it's also called while drawing.
+     *
+     * @return `true` if a level was being drawn from, and the
+     * geometry needs to be resolved again
+     */
+    private boolean releaseMipChain() {
+        if (mMipChain == null) {
+            return false;
+        }
+
+        boolean levelInUse = mMipLevel != 0;
+
+        if (levelInUse) {
+            mMipLevel = 0;
+            mRenderer.setBitmap(mBitmap);
+
+            // the shader matrix was computed for the level
+            mShaderDirty = true;
+            mGeometryDirty = true;
+        }
+
+        mMipChain.release();
+        mMipChain = null;
+        return levelInUse;
+    }
+
+    /********************* Changes *********************/
+
+    /**
+     * Governs the rounding aspect of this ImageView.
+     * Value of `0f` signifies no rounding at all.
+     * Value of `1f` signifies perfectly rounded corners.
+     * Values in-between are interpolated to provide the
+     * required rounding.
+     *
+     * @param roundingProgress rounding value to apply; constrained in range [0f,1f]
+     */
+    public void setRoundingProgress(float roundingProgress) {
+        // constrain value in range [0f,1f]
+        roundingProgress = constrain(roundingProgress, RoundingProgress.MIN.progressValue(),
+                RoundingProgress.MAX.progressValue());
+
+        if (mRoundingProgress == roundingProgress) {
+            // no change
+            return;
+        }
+
+        // apply changes
+        mRoundingProgress = roundingProgress;
+
+        if (isSubPixelChange(getWidth(), getHeight())) {
+            // the last drawn frame is still accurate; common near
+            // either end of an eased animation
+            skipFrame();
+            return;
+        }
+
+        if (mRenderer != null) {
+            mRenderer.onBoundsChanged();
+        }
+
+        // Animation fast path: the bitmap hasn't changed,
+        // so the existing shader is reused when drawing.
+        if (mGeometryDirty || !mReady) {
+            invalidateGeometry();
+        } else {
+            // `mCandidateGeometry` was computed by `isSubPixelChange(...)`
+            invalidateGeometryChange();
+        }
+    }
+
+    /**
+     * Lets the renderer know that the rounded rect has changed,
+     * then invalidates the geometry.
+     */
+    private void onBoundsChanged() {
+        // padding can be set from within the super constructor
+        if (mRenderer != null) {
+            mRenderer.onBoundsChanged();
+        }
+
+        invalidateGeometry();
+    }
+
+    /**
+     * Same as {@link #invalidateGeometry()}, but only invalidates the area
+     * covered by the current & the candidate rounded rects - the
+     * rest of the view is unaffected by the change.
+     */
+    private void invalidateGeometryChange() {
+        mGeometryDirty = true;
+
+        mCandidateGeometry.computeDirtyBounds(mGeometry);
+        invalidate(mCandidateGeometry.dirtyLeft, mCandidateGeometry.dirtyTop,
+                mCandidateGeometry.dirtyRight, mCandidateGeometry.dirtyBottom);
+    }
+
+    /**
+     * Returns the number of rounding & size changes that were not redrawn,
+     * since their effect on the drawn geometry was less than half a pixel.
+     *
+     * @return number of skipped frames
+     */
+    public int getSkippedFrameCount() {
+        return mSkippedFrameCount;
+    }
+
+    /**
+     * Resets {@link #getSkippedFrameCount()} to `0`.
+     */
+    public void resetSkippedFrameCount() {
+        mSkippedFrameCount = 0;
+    }
+
+    /**
+     * Returns whether the current rounding, at the given size, would be drawn
+     * within half a pixel of the last computed geometry.
+     *
+     * @param width view width
+     * @param height view height
+     * @return `true` if the geometry doesn't need to be recomputed
+     */
+    private boolean isSubPixelChange(int width, int height) {
+        if (mGeometryDirty || !mReady) {
+            // going to be recomputed anyway
+            return false;
+        }
+
+        if (!mGeometry.hasBounds()) {
+            // nothing has been drawn to compare against
+            return false;
+        }
+
+        mCandidateGeometry.computeBounds(width, height, getPaddingLeft(), getPaddingTop(),
+                getPaddingRight(), getPaddingBottom(), mRoundingProgress);
+
+        return !mCandidateGeometry.boundsDifferVisibly(mGeometry);
+    }
+
+    /**
+     * Returns the current amount of rounding.
+     *
+     * @return current rounding amount
+     */
+    public float getRoundingProgress() {
+        return mRoundingProgress;
+    }
+
+    /**
+     * Second stage of a two-stage image: sets the full resolution version
+     * of the image currently shown (the thumbnail). If an {@link ImageTransition}
+     * is running on this view, or about to - its values have been captured, or it
+     * was postponed by {@link EnterTransitionPostponer} - the thumbnail is animated
+     * & the swap is deferred until the transition ends. Otherwise, the image is
+     * swapped right away.
+     *
+     * The swap doesn't request a layout pass, unless this view's
+     * size depends on its image (`wrap_content`). Both images should have
+     * the same aspect ratio, so that the 'centerCrop' result doesn't shift.
+     *
+     * The deferred swap is dropped if a different image is set in the meantime.
+     *
+     * @param drawable full resolution image
+     */
+    public void setFullResolutionImageDrawable(Drawable drawable) {
+        if (drawable == null) {
+            throw new IllegalArgumentException("drawable cannot be null.");
+        }
+
+        mPendingDrawable = drawable;
+        mPendingThumbnail = getDrawable();
+
+        if (mRunningTransitions == 0 && mPendingTransitions == 0) {
+            swapInFullResolutionImage();
+        }
+    }
+
+    /**
+     * Same as {@link #setFullResolutionImageDrawable(Drawable)}, for a bitmap.
+     *
+     * @param bitmap full resolution image
+     */
+    public void setFullResolutionImageBitmap(Bitmap bitmap) {
+        setFullResolutionImageDrawable(new BitmapDrawable(getResources(), bitmap));
+    }
+
+    /**
+     * Returns whether an {@link ImageTransition} is currently running on this view.
+     *
+     * @return `true` if a transition is running
+     */
+    public boolean isTransitionRunning() {
+        return mRunningTransitions > 0;
+    }
+
+    /**
+     * Called when a transition that will run on this view has captured its values,
+     * or was postponed. The full resolution image is held back from then on,
+     * as if the transition was running.
+     */
+    void addPendingTransition() {
+        mPendingTransitions++;
+    }
+
+    /**
+     * Called when a transition passed to {@link #addPendingTransition()} has ended,
+     * or won't run after all. Swaps in the full resolution image once no other
+     * transitions are pending or running.
+     */
+    void removePendingTransition() {
+        if (mPendingTransitions == 0) {
+            // reset by `recycle()` in the meantime
+            return;
+        }
+
+        if (--mPendingTransitions == 0 && mRunningTransitions == 0) {
+            swapInFullResolutionImage();
+        }
+    }
+
+    /**
+     * Returns the listener that {@link ImageTransition} adds
+     * to the animators it runs on this view.
+     *
+     * @return listener that tracks running transitions
+     */
+    Animator.AnimatorListener getTransitionListener() {
+        if (mTransitionListener == null) {
+            mTransitionListener = new TransitionAnimatorListener();
+        }
+
+        return mTransitionListener;
+    }
+
+    private void swapInFullResolutionImage() {
+        Drawable drawable = mPendingDrawable;
+        Drawable thumbnail = mPendingThumbnail;
+
+        mPendingDrawable = null;
+        mPendingThumbnail = null;
+
+        if (drawable == null || getDrawable() != thumbnail) {
+            // nothing pending, or a different image was set in the meantime
+            return;
+        }
+
+        ViewGroup.LayoutParams lp = getLayoutParams();
+        mLayoutSuppressed = lp != null && lp.width != ViewGroup.LayoutParams.WRAP_CONTENT
+                && lp.height != ViewGroup.LayoutParams.WRAP_CONTENT;
+
+        try {
+            setImageDrawable(drawable);
+        } finally {
+            mLayoutSuppressed = false;
+        }
+    }
+
+    private class TransitionAnimatorListener extends AnimatorListenerAdapter {
+
+        @Override
+        public void onAnimationStart(Animator animation) {
+            buildMipLevels();
+
+            if (mRunningTransitions++ > 0) {
+                return;
+            }
+
+            if (mFrameTimeMonitor != null) {
+                mFrameTimeMonitor.reset();
+            }
+
+            if (mMetricsListener != null || mTransitionMetricsListener != null) {
+                mMetrics = new TransitionMetrics();
+                mMetrics.start(System.nanoTime(), mCaptureNanos, mSkippedFrameCount);
+            }
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            // also called after `onAnimationCancel(Animator)`
+            if (mRunningTransitions > 0) {
+                mRunningTransitions--;
+            }
+
+            if (mRunningTransitions == 0) {
+                if (releaseMipChain()) {
+                    invalidateGeometry();
+                }
+
+                restoreQuality();
+
+                if (mPendingTransitions == 0) {
+                    swapInFullResolutionImage();
+                }
+
+                dispatchMetrics();
+            }
+        }
+    }
+
+    /**
+     * Enables or disables downsampling of the source bitmap. When enabled,
+     * this view draws from a copy of the bitmap that is scaled down to
+     * the largest size the view has been laid out at (including the end
+     * bounds of a running {@link ImageTransition}), rather than from
+     * the full resolution bitmap. Disabled by default.
+     *
+     * @param enabled `true` to draw from a downsampled copy
+     */
+    public void setDownsamplingEnabled(boolean enabled) {
+        if (mDownsamplingEnabled == enabled) {
+            return;
+        }
+
+        mDownsamplingEnabled = enabled;
+
+        if (!enabled && mBitmap != mSourceBitmap) {
+            BitmapPool.getInstance().put(mBitmap);
+            mBitmap = mSourceBitmap;
+        }
+
+        setup();
+    }
+
+    /**
+     * Returns whether the source bitmap is downsampled to this view's size.
+     *
+     * @return `true` if downsampling is enabled
+     */
+    public boolean isDownsamplingEnabled() {
+        return mDownsamplingEnabled;
+    }
+
+    /**
+     * Sets a listener that is notified with the {@link TransitionMetrics} of each
+     * transition run on this view. Measurements are only taken while a listener
+     * is set, on this view or on the {@link ImageTransition}.
+     *
+     * @param listener listener to notify; `null` to stop measuring
+     */
+    public void setMetricsListener(TransitionMetricsListener listener) {
+        mMetricsListener = listener;
+    }
+
+    /**
+     * Returns the listener notified with the metrics of each transition.
+     *
+     * @return the metrics listener, or `null`
+     */
+    public TransitionMetricsListener getMetricsListener() {
+        return mMetricsListener;
+    }
+
+    /**
+     * Sets a recorder that captures the timing, rounding progress & rounded
+     * rect of every frame this view draws, for offline inspection.
+     * Frames are only timed while a recorder or metrics listener is set.
+     *
+     * @param recorder recorder to write to; `null` to stop recording
+     */
+    public void setTraceRecorder(TransitionTraceRecorder recorder) {
+        mTraceRecorder = recorder;
+    }
+
+    /**
+     * Returns the recorder capturing this view's frames.
+     *
+     * @return the trace recorder, or `null`
+     */
+    public TransitionTraceRecorder getTraceRecorder() {
+        return mTraceRecorder;
+    }
+
+    /**
+     * Returns the number of bytes held by bitmaps this view created itself:
+     * the rasterized copy of a non-bitmap drawable, the downsampled copy
+     * and any mip levels. These go back to the {@link BitmapPool} once
+     * they're no longer used.
+     *
+     * @return owned bytes
+     */
+    public int getOwnedBitmapBytes() {
+        int bytes = 0;
+
+        if (mOwnsSourceBitmap && mSourceBitmap != null) {
+            bytes += mSourceBitmap.getByteCount();
+        }
+
+        if (mBitmap != null && mBitmap != mSourceBitmap) {
+            bytes += mBitmap.getByteCount();
+        }
+
+        if (mMipChain != null) {
+            bytes += mMipChain.getByteCount();
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Returns the number of bytes held by the bitmap this view draws from,
+     * if it doesn't own it - e.g. the bitmap of a {@link BitmapDrawable},
+     * or one shared through the {@link DrawableBitmapCache}.
+     *
+     * @return borrowed bytes
+     */
+    public int getBorrowedBitmapBytes() {
+        Bitmap bitmap = getShareableBitmap();
+        return bitmap != null ? bitmap.getByteCount() : 0;
+    }
+
+    /**
+     * Returns whether this view's source bitmap is much larger than the
+     * largest area it's drawn to, including sizes reached during transitions.
+     * Such images are better decoded at a smaller size.
+     *
+     * @return `true` if the source bitmap is oversized
+     */
+    public boolean isBitmapOversized() {
+        if (mColorDrawable != null || mSourceBitmap == null) {
+            return false;
+        }
+
+        return BitmapMemoryAccounting.isOversized(mSourceBitmap.getWidth(), mSourceBitmap.getHeight(),
+                getTargetImageWidth(), getTargetImageHeight());
+    }
+
+    /**
+     * Prepares this view to be bound to another image, e.g. when the
+     * `RecyclerView.ViewHolder` holding it is recycled.
+     * See {@link TransitionImageViewRecyclerListener}.
+     *
+     * Pending decodes are cancelled, and state left over from transitions -
+     * rounding progress, target size, a deferred full resolution image,
+     * metrics - is reset. Bitmaps this view owns go back to the
+     * {@link BitmapPool}, where they can be reused for the next image.
+     * The drawable itself is kept until the next `setImage*` call,
+     * so that recycling doesn't request a layout.
+     */
+    public void recycle() {
+        cancelDecodeRequest();
+
+        mPendingDrawable = null;
+        mPendingThumbnail = null;
+        mPendingTransitions = 0;
+
+        mRoundingProgress = mInitialRoundingProgress;
+        mMaxAvailableWidth = 0;
+        mMaxAvailableHeight = 0;
+        mMinTransitionWidth = 0;
+        mMinTransitionHeight = 0;
+
+        mMetrics = null;
+        mCaptureNanos = 0;
+        mTransitionMetricsListener = null;
+        restoreQuality();
+
+        releaseBitmaps();
+    }
+
+    /**
+     * Called when an {@link ImageTransition} with a metrics listener
+     * captures this view's start values.
+     *
+     * @param captureNanos time of capture, from `System.nanoTime()`
+     */
+    void onStartValuesCaptured(long captureNanos) {
+        mCaptureNanos = captureNanos;
+    }
+
+    /**
+     * Sets the listener of the {@link ImageTransition} about to run on this
+     * view. Cleared once the transition ends.
+     *
+     * @param listener listener of the transition
+     */
+    void setTransitionMetricsListener(TransitionMetricsListener listener) {
+        mTransitionMetricsListener = listener;
+    }
+
+    private void dispatchMetrics() {
+        TransitionMetrics metrics = mMetrics;
+        TransitionMetricsListener transitionListener = mTransitionMetricsListener;
+
+        mMetrics = null;
+        mTransitionMetricsListener = null;
+        mCaptureNanos = 0;
+
+        if (metrics == null) {
+            return;
+        }
+
+        metrics.finish(System.nanoTime(), mSkippedFrameCount);
+
+        if (mMetricsListener != null) {
+            mMetricsListener.onTransitionMetrics(this, metrics);
+        }
+
+        if (transitionListener != null && transitionListener != mMetricsListener) {
+            transitionListener.onTransitionMetrics(this, metrics);
+        }
+    }
+
+    /**
+     * Enables or disables adaptive quality. When enabled, the interval between
+     * frames is measured while an {@link ImageTransition} is running. Once several
+     * consecutive frames go over budget, anti-aliasing & bitmap filtering are
+     * turned off for the rest of the transition. The final frame is drawn at
+     * full quality. Meant for low-end devices. Disabled by default.
+     *
+     * @param enabled `true` to trade quality for speed when frames go over budget
+     */
+    public void setAdaptiveQualityEnabled(boolean enabled) {
+        if (mAdaptiveQualityEnabled == enabled) {
+            return;
+        }
+
+        mAdaptiveQualityEnabled = enabled;
+
+        if (!enabled) {
+            restoreQuality();
+        }
+    }
+
+    /**
+     * Returns whether quality is traded for speed when frames go over budget.
+     *
+     * @return `true` if adaptive quality is enabled
+     */
+    public boolean isAdaptiveQualityEnabled() {
+        return mAdaptiveQualityEnabled;
+    }
+
+    /**
+     * Enables or disables mipmapping during transitions. When enabled, a running
+     * {@link ImageTransition} draws from a copy of the bitmap that is halved as
+     * many times as the current scale allows, rather than sampling the full
+     * resolution bitmap at a fraction of its size. Copies are built when the
+     * transition starts, down to the smallest size it animates this view to,
+     * and handed back to the {@link BitmapPool} once it ends. Disabled by default.
+     *
+     * @param enabled `true` to draw from mip levels during transitions
+     */
+    public void setMipmapsEnabled(boolean enabled) {
+        if (mMipmapsEnabled == enabled) {
+            return;
+        }
+
+        mMipmapsEnabled = enabled;
+
+        if (!enabled) {
+            releaseMipChain();
+        }
+
+        invalidateGeometry();
+    }
+
+    /**
+     * Returns whether transitions draw from mip levels.
+     *
+     * @return `true` if mipmapping is enabled
+     */
+    public boolean isMipmapsEnabled() {
+        return mMipmapsEnabled;
+    }
+
+    /**
+     * Enables or disables asynchronous decoding. When enabled, `setImageURI(Uri)`
+     * & `setImageResource(int)` clear the current image, and decode the new one
+     * on a background thread once this view has been laid out - subsampled
+     * to this view's size. Setting another image cancels a pending decode.
+     * Resources that aren't bitmaps (vectors etc.) are loaded synchronously
+     * once the background decode has failed. Disabled by default.
+     *
+     * @param enabled `true` to decode on a background thread
+     */
+    public void setAsyncDecodeEnabled(boolean enabled) {
+        mAsyncDecodeEnabled = enabled;
+    }
+
+    /**
+     * Returns whether `setImageURI(Uri)` & `setImageResource(int)`
+     * decode on a background thread.
+     *
+     * @return `true` if asynchronous decoding is enabled
+     */
+    public boolean isAsyncDecodeEnabled() {
+        return mAsyncDecodeEnabled;
+    }
+
+    private void decodeAsync(ImageDecodeRequest request) {
+        // stale image is not shown while decoding
+        super.setImageDrawable(null);
+        initializeBitmap();
+
+        mDecodeRequest = request;
+        submitDecodeRequest();
+    }
+
+    /**
+     * Submits the pending decode request once this view's size is known.
+     */
+    private void submitDecodeRequest() {
+        if (mDecodeRequest == null || mDecodeRequest.isSubmitted()) {
+            return;
+        }
+
+        // include the end bounds of a running ImageTransition
+        int targetWidth = getTargetImageWidth();
+        int targetHeight = getTargetImageHeight();
+
+        if (targetWidth > 0 && targetHeight > 0) {
+            mDecodeRequest.submit(targetWidth, targetHeight);
+        }
+    }
+
+    private void cancelDecodeRequest() {
+        if (mDecodeRequest != null) {
+            mDecodeRequest.cancel();
+            mDecodeRequest = null;
+        }
+    }
+
+    /**
+     * Called on the main thread once `request` has been decoded.
+     *
+     * @param request completed request
+     * @param bitmap decoded bitmap; `null` if decoding failed
+     */
+    void onImageDecoded(ImageDecodeRequest request, Bitmap bitmap) {
+        if (request != mDecodeRequest) {
+            // stale
+            return;
+        }
+
+        mDecodeRequest = null;
+
+        if (bitmap != null) {
+            setImageBitmap(bitmap);
+        } else if (request.getUri() != null) {
+            // let ImageView have a go
+            super.setImageURI(request.getUri());
+            initializeBitmap();
+        } else {
+            super.setImageResource(request.getResId());
+            initializeBitmap();
+        }
+    }
+
+    /**
+     * Sets how the rounded bitmap is drawn. {@link RenderMode#AUTO}, the default,
+     * picks {@link RenderMode#OUTLINE} on API 21 and above,
+     * and {@link RenderMode#SHADER} otherwise.
+     *
+     * Note that {@link RenderMode#OUTLINE} clips the whole view - background
+     * included - to the rounded rect, and replaces any `ViewOutlineProvider`
+     * set on it for as long as it's in use. Pick {@link RenderMode#SHADER}
+     * to keep the behaviour of earlier versions on API 21 and above.
+     *
+     * @param renderMode means of drawing to use
+     */
+    public void setRenderMode(RenderMode renderMode) {
+        if (renderMode == null) {
+            throw new IllegalArgumentException("renderMode cannot be null.");
+        }
+
+        if (renderMode == mRenderMode) {
+            return;
+        }
+
+        mRenderMode = renderMode;
+        installRenderer();
+        setup();
+    }
+
+    /**
+     * Returns the requested means of drawing.
+     *
+     * @return requested render mode
+     */
+    public RenderMode getRenderMode() {
+        return mRenderMode;
+    }
+
+    private void installRenderer() {
+        if (mRenderer != null) {
+            mRenderer.detach(this);
+            mRenderer.release();
+        }
+
+        mRenderer = TransitionRenderer.create(
+                TransitionRenderer.resolve(mRenderMode, Build.VERSION.SDK_INT), mBitmapPaint);
+        mRenderer.attach(this);
+        mRenderer.setMaxSize(mMaxAvailableWidth, mMaxAvailableHeight);
+
+        // the new renderer has no bounds yet
+        mGeometry.invalidateBounds();
+    }
+
+    /**
+     * Sets the config used to rasterize non-bitmap drawables
+     * (vectors, shapes etc.). Bitmaps set directly, or through
+     * a {@link BitmapDrawable}, are drawn as-is.
+     *
+     * Use {@link Bitmap.Config#RGB_565} for opaque content, and
+     * {@link Bitmap.Config#ALPHA_8} for single-color masks - these are
+     * drawn in black, unless tinted using {@link #setColorFilter(ColorFilter)}.
+     * Defaults to {@link Bitmap.Config#ARGB_8888}.
+     *
+     * @param config config to rasterize drawables with
+     */
+    public void setBitmapConfig(Bitmap.Config config) {
+        if (config == null) {
+            throw new IllegalArgumentException("config cannot be null.");
+        }
+
+        if (config == getBitmapConfig()) {
+            return;
+        }
+
+        mBitmapConfig = config;
+        initializeBitmap();
+    }
+
+    /**
+     * Returns the config used to rasterize non-bitmap drawables.
+     *
+     * @return current config
+     */
+    public Bitmap.Config getBitmapConfig() {
+        return mBitmapConfig != null ? mBitmapConfig : BITMAP_CONFIG;
+    }
+
+    /**
+     * When allowed, drawables that report themselves as opaque
+     * are rasterized using {@link Bitmap.Config#RGB_565},
+     * regardless of {@link #getBitmapConfig()}. Disabled by default.
+     *
+     * @param allowed `true` to use RGB_565 for opaque drawables
+     */
+    public void setOpaqueConfigAllowed(boolean allowed) {
+        if (mOpaqueConfigAllowed == allowed) {
+            return;
+        }
+
+        mOpaqueConfigAllowed = allowed;
+        initializeBitmap();
+    }
+
+    /**
+     * Returns whether opaque drawables are rasterized using RGB_565.
+     *
+     * @return `true` if RGB_565 is used for opaque drawables
+     */
+    public boolean isOpaqueConfigAllowed() {
+        return mOpaqueConfigAllowed;
+    }
+
+    /**
+     * Lets this view know about a size it will be animated to, so that
+     * a downsampled bitmap is large enough for the whole transition, and
+     * the mip levels it needs are built when the transition starts.
+     *
+     * @param width width this view will be laid out at
+     * @param height height this view will be laid out at
+     */
+    void ensureTargetSize(int width, int height) {
+        int availableWidth = width - getPaddingLeft() - getPaddingRight();
+        int availableHeight = height - getPaddingTop() - getPaddingBottom();
+
+        setTargetImageSize(availableWidth, availableHeight);
+
+        if (mMinTransitionWidth == 0 || availableWidth < mMinTransitionWidth) {
+            mMinTransitionWidth = availableWidth;
+        }
+
+        if (mMinTransitionHeight == 0 || availableHeight < mMinTransitionHeight) {
+            mMinTransitionHeight = availableHeight;
+        }
+    }
+
+    /**
+     * Lets this view know ahead of time about the largest size its image
+     * will be shown at - e.g. the size of the view it will be transitioned to.
+     * Image loaders see this through {@link #getTargetImageWidth()} &
+     * {@link #getTargetImageHeight()}. Sizes only ever grow.
+     *
+     * @param availableWidth width of the image, excluding padding
+     * @param availableHeight height of the image, excluding padding
+     */
+    public void setTargetImageSize(int availableWidth, int availableHeight) {
+        if (availableWidth > mMaxAvailableWidth || availableHeight > mMaxAvailableHeight) {
+            mMaxAvailableWidth = Math.max(mMaxAvailableWidth, availableWidth);
+            mMaxAvailableHeight = Math.max(mMaxAvailableHeight, availableHeight);
+            mRenderer.setMaxSize(mMaxAvailableWidth, mMaxAvailableHeight);
+
+            if (mDownsamplingEnabled) {
+                invalidateGeometry();
+            }
+
+            submitDecodeRequest();
+        }
+    }
+
+    @Override
+    public int getImageWidth() {
+        return Math.max(getWidth() - getPaddingLeft() - getPaddingRight(), 0);
+    }
+
+    @Override
+    public int getImageHeight() {
+        return Math.max(getHeight() - getPaddingTop() - getPaddingBottom(), 0);
+    }
+
+    @Override
+    public int getTargetImageWidth() {
+        return Math.max(getImageWidth(), mMaxAvailableWidth);
+    }
+
+    @Override
+    public int getTargetImageHeight() {
+        return Math.max(getImageHeight(), mMaxAvailableHeight);
     }
 
     /**
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Calls {@link TransitionImageView#recycle()} on every {@link TransitionImageView}
+ * within an item of a {@link RecyclerView} as the item is recycled.
+ *
+ * The library only declares RecyclerView as a `provided` dependency -
+ * this class can only be used by apps that depend on it themselves.
+ */
+public class TransitionImageViewRecyclerListener implements RecyclerView.RecyclerListener {
+
+    private final RecyclerView.RecyclerListener mDelegate;
+
+    /**
+     * Creates a listener that recycles {@link TransitionImageView}s only.
+     */
+    public TransitionImageViewRecyclerListener() {
+        this(null);
+    }
+
+    /**
+     * Creates a listener that recycles {@link TransitionImageView}s,
+     * then passes the recycled holder on to `delegate`.
+     *
+     * @param delegate listener to notify as well; may be `null`
+     */
+    public TransitionImageViewRecyclerListener(RecyclerView.RecyclerListener delegate) {
+        mDelegate = delegate;
+    }
+
+    /**
+     * Sets a new {@link TransitionImageViewRecyclerListener} on the given
+     * {@link RecyclerView}. This replaces any listener set before - use
+     * {@link #TransitionImageViewRecyclerListener(RecyclerView.RecyclerListener)}
+     * to keep it.
+     *
+     * @param recyclerView view whose items should be recycled
+     */
+    public static void install(RecyclerView recyclerView) {
+        recyclerView.setRecyclerListener(new TransitionImageViewRecyclerListener());
+    }
+
+    @Override
+    public void onViewRecycled(RecyclerView.ViewHolder holder) {
+        recycle(holder.itemView);
+
+        if (mDelegate != null) {
+            mDelegate.onViewRecycled(holder);
+        }
+    }
+
+    /**
+     * Recycles the given view if it's a {@link TransitionImageView},
+     * or any {@link TransitionImageView} within it.
+     *
+     * @param view item view, or one of its descendants
+     */
+    static void recycle(View view) {
+        if (view instanceof TransitionImageView) {
+            ((TransitionImageView) view).recycle();
+        } else if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+
+            for (int i = 0; i < group.getChildCount(); i++) {
+                recycle(group.getChildAt(i));
+            }
+        }
+    }
+}
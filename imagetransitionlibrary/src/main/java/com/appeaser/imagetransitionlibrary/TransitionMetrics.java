@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.appeaser.imagetransitionlibrary;
+
+/**
+ * Measurements taken while a transition ran on a {@link TransitionImageView}.
+ * See {@link TransitionMetricsListener}. All times are in nanoseconds.
+ *
+ * A frame's setup is the geometry & shader work done before drawing -
+ * for most frames, only the rounded rect & shader matrix are recomputed.
+ */
+public final class TransitionMetrics {
+
+    // `0` when start values were not captured with a listener set
+    private long mCaptureNanos;
+    private long mStartNanos;
+    private long mFirstFrameNanos;
+    private long mEndNanos;
+
+    private int mFrameCount;
+    private long mTotalSetupNanos;
+    private long mMaxSetupNanos;
+    private long mTotalDrawNanos;
+    private long mMaxDrawNanos;
+
+    private int mSkippedFrameCountAtStart;
+    private int mSkippedFrameCount;
+
+    TransitionMetrics() {}
+
+    void start(long startNanos, long captureNanos, int skippedFrameCount) {
+        mStartNanos = startNanos;
+        mCaptureNanos = captureNanos;
+        mSkippedFrameCountAtStart = skippedFrameCount;
+    }
+
+    void onFrame(long frameStartNanos, long setupEndNanos, long drawEndNanos) {
+        if (mFrameCount++ == 0) {
+            mFirstFrameNanos = frameStartNanos;
+        }
+
+        long setupNanos = setupEndNanos - frameStartNanos;
+        long drawNanos = drawEndNanos - setupEndNanos;
+
+        mTotalSetupNanos += setupNanos;
+        mMaxSetupNanos = Math.max(mMaxSetupNanos, setupNanos);
+        mTotalDrawNanos += drawNanos;
+        mMaxDrawNanos = Math.max(mMaxDrawNanos, drawNanos);
+    }
+
+    void finish(long endNanos, int skippedFrameCount) {
+        mEndNanos = endNanos;
+        mSkippedFrameCount = skippedFrameCount - mSkippedFrameCountAtStart;
+    }
+
+    /**
+     * Returns the time from capturing the transition's start values to
+     * drawing its first frame, or `-1` if either is unknown.
+     *
+     * @return capture to first frame latency
+     */
+    public long getCaptureToFirstFrameNanos() {
+        return mCaptureNanos != 0 && mFrameCount > 0 ? mFirstFrameNanos - mCaptureNanos : -1;
+    }
+
+    /**
+     * Returns the time from the animation's start to its end.
+     *
+     * @return duration of the transition
+     */
+    public long getDurationNanos() {
+        return mEndNanos - mStartNanos;
+    }
+
+    /**
+     * Returns the number of frames drawn during the transition.
+     *
+     * @return frame count
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * Returns the number of changes that were not drawn, since they
+     * were less than half a pixel. See {@link TransitionImageView#getSkippedFrameCount()}.
+     *
+     * @return skipped frame count
+     */
+    public int getSkippedFrameCount() {
+        return mSkippedFrameCount;
+    }
+
+    /**
+     * @return time spent in setup, across all frames
+     */
+    public long getTotalSetupNanos() {
+        return mTotalSetupNanos;
+    }
+
+    /**
+     * @return longest setup of a single frame
+     */
+    public long getMaxSetupNanos() {
+        return mMaxSetupNanos;
+    }
+
+    /**
+     * @return time spent drawing, across all frames
+     */
+    public long getTotalDrawNanos() {
+        return mTotalDrawNanos;
+    }
+
+    /**
+     * @return longest draw of a single frame
+     */
+    public long getMaxDrawNanos() {
+        return mMaxDrawNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "TransitionMetrics{captureToFirstFrameNanos=" + getCaptureToFirstFrameNanos()
+                + ", durationNanos=" + getDurationNanos()
+                + ", frameCount=" + mFrameCount
+                + ", skippedFrameCount=" + mSkippedFrameCount
+                + ", totalSetupNanos=" + mTotalSetupNanos
+                + ", maxSetupNanos=" + mMaxSetupNanos
+                + ", totalDrawNanos=" + mTotalDrawNanos
+                + ", maxDrawNanos=" + mMaxDrawNanos + "}";
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.appeaser.imagetransitionlibrary;
+
+/**
+ * Notified with the {@link TransitionMetrics} of each transition run on a
+ * {@link TransitionImageView}. Register with
+ * {@link TransitionImageView#setMetricsListener(TransitionMetricsListener)},
+ * {@link ImageTransition#setMetricsListener(TransitionMetricsListener)} or
+ * `ImageTransitionCompat#setMetricsListener(TransitionMetricsListener)`.
+ *
+ * Called on the main thread, once the transition has ended.
+ */
+public interface TransitionMetricsListener {
+
+    /**
+     * @param view view the transition ran on
+     * @param metrics measurements taken during the transition
+     */
+    void onTransitionMetrics(TransitionImageView view, TransitionMetrics metrics);
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.Build;
+import android.view.View;
+
+/**
+ * Draws the contents of a {@link TransitionImageView}: the bitmap,
+ * scaled by the shader matrix & clipped to a rounded rect.
+ *
+ * {@link TransitionImageView} resolves its geometry at most once per frame
+ * and passes it on through {@link #setBounds(float, float, float, float, float)}
+ * & {@link #setShaderMatrix(Matrix)}. Implementations should keep the work
+ * done in these calls to a minimum - they run on every animation frame.
+ *
+ * See {@link TransitionImageView.RenderMode} for available implementations.
+ */
+abstract class TransitionRenderer {
+
+    // Paint owned by the view - color filter & flags are applied by the view
+    final Paint mPaint;
+
+    Bitmap mBitmap;
+
+    // Rounded rect to draw
+    final RectF mRect = new RectF();
+    float mLeft;
+    float mTop;
+    float mRight;
+    float mBottom;
+    float mRadius;
+
+    TransitionRenderer(Paint paint) {
+        mPaint = paint;
+    }
+
+    /**
+     * Returns the mode that is used for the requested one on the given API level.
+     *
+     * @param mode requested mode
+     * @param sdkInt API level of the device
+     * @return concrete mode to use; never {@link TransitionImageView.RenderMode#AUTO}
+     */
+    static TransitionImageView.RenderMode resolve(TransitionImageView.RenderMode mode, int sdkInt) {
+        boolean outlineSupported = sdkInt >= Build.VERSION_CODES.LOLLIPOP;
+
+        switch (mode) {
+            case AUTO:
+            case OUTLINE:
+                return outlineSupported ? TransitionImageView.RenderMode.OUTLINE
+                        : TransitionImageView.RenderMode.SHADER;
+            default:
+                return mode;
+        }
+    }
+
+    /**
+     * Creates a renderer for the given concrete mode.
+     *
+     * @param mode mode returned by {@link #resolve(TransitionImageView.RenderMode, int)}
+     * @param paint paint owned by the view
+     * @return new renderer
+     */
+    static TransitionRenderer create(TransitionImageView.RenderMode mode, Paint paint) {
+        switch (mode) {
+            case OUTLINE:
+                return new OutlineRenderer(paint);
+            case MASK:
+                return new MaskRenderer(paint);
+            default:
+                return new ShaderRenderer(paint);
+        }
+    }
+
+    /**
+     * Called when this renderer is installed on the given view.
+     *
+     * @param view view to render
+     */
+    void attach(View view) {
+    }
+
+    /**
+     * Called when this renderer is removed from the given view.
+     *
+     * @param view view that was rendered
+     */
+    void detach(View view) {
+    }
+
+    /**
+     * Sets the bitmap to draw, or `null` if there's nothing to draw.
+     *
+     * @param bitmap bitmap to draw
+     */
+    void setBitmap(Bitmap bitmap) {
+        mBitmap = bitmap;
+    }
+
+    /**
+     * Sets the rounded rect the bitmap is drawn in.
+     *
+     * @param left left edge of the rect
+     * @param top top edge of the rect
+     * @param right right edge of the rect
+     * @param bottom bottom edge of the rect
+     * @param radius corner radius
+     */
+    void setBounds(float left, float top, float right, float bottom, float radius) {
+        mLeft = left;
+        mTop = top;
+        mRight = right;
+        mBottom = bottom;
+        mRadius = radius;
+        mRect.set(left, top, right, bottom);
+    }
+
+    /**
+     * Called from the view's setters when its size, padding or rounding has changed -
+     * ahead of the next call to {@link #setBounds(float, float, float, float, float)},
+     * which happens while drawing. Renderers that keep state outside of the
+     * drawing pass (e.g. the view's outline) update it here.
+     */
+    void onBoundsChanged() {
+    }
+
+    /**
+     * Lets this renderer know the largest size the rounded rect will be drawn at
+     * - e.g. the end bounds of a transition - ahead of time. Sizes only ever grow.
+     *
+     * @param width largest width of the rounded rect
+     * @param height largest height of the rounded rect
+     */
+    void setMaxSize(int width, int height) {
+    }
+
+    /**
+     * Sets the transformation that maps the bitmap onto the view.
+     *
+     * @param matrix shader matrix; owned by the caller
+     */
+    abstract void setShaderMatrix(Matrix matrix);
+
+    /**
+     * Draws the bitmap.
+     *
+     * @param canvas canvas to draw on
+     */
+    abstract void draw(Canvas canvas);
+
+    /**
+     * Drops references to the bitmap & any objects derived from it.
+     */
+    void release() {
+        mBitmap = null;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * In-memory recorder of the frames drawn by {@link TransitionImageView}s.
+ * See {@link TransitionImageView#setTraceRecorder(TransitionTraceRecorder)}.
+ *
+ * Each frame's timing, rounding progress & rounded rect is kept in a ring
+ * buffer of fixed capacity - once full, the oldest frames are overwritten.
+ * Recording doesn't allocate, so a recorder can be left attached while
+ * reproducing a janky transition. The recorded frames can then be exported
+ * as Chrome trace-event JSON, and opened in `chrome://tracing` or Perfetto.
+ *
+ * A single recorder may be shared by several views; each view
+ * shows up as a thread of its own in the exported trace.
+ */
+public final class TransitionTraceRecorder {
+
+    /**
+     * Default number of frames kept.
+     */
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private final int mCapacity;
+
+    // Ring buffer, one slot per frame
+    private final int[] mViewIds;
+    private final long[] mFrameStartNanos;
+    private final long[] mSetupEndNanos;
+    private final long[] mDrawEndNanos;
+    private final float[] mRoundingProgress;
+    private final float[] mLeft;
+    private final float[] mTop;
+    private final float[] mRight;
+    private final float[] mBottom;
+
+    // Slot the next frame is written to
+    private int mNext;
+    private int mSize;
+
+    /**
+     * Creates a recorder that keeps the last {@link #DEFAULT_CAPACITY} frames.
+     */
+    public TransitionTraceRecorder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a recorder that keeps the last `capacity` frames.
+     *
+     * @param capacity number of frames kept
+     */
+    public TransitionTraceRecorder(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+
+        mCapacity = capacity;
+
+        mViewIds = new int[capacity];
+        mFrameStartNanos = new long[capacity];
+        mSetupEndNanos = new long[capacity];
+        mDrawEndNanos = new long[capacity];
+        mRoundingProgress = new float[capacity];
+        mLeft = new float[capacity];
+        mTop = new float[capacity];
+        mRight = new float[capacity];
+        mBottom = new float[capacity];
+    }
+
+    synchronized void record(int viewId, long frameStartNanos, long setupEndNanos, long drawEndNanos,
+                             float roundingProgress, float left, float top, float right, float bottom) {
+        int slot = mNext;
+
+        mViewIds[slot] = viewId;
+        mFrameStartNanos[slot] = frameStartNanos;
+        mSetupEndNanos[slot] = setupEndNanos;
+        mDrawEndNanos[slot] = drawEndNanos;
+        mRoundingProgress[slot] = roundingProgress;
+        mLeft[slot] = left;
+        mTop[slot] = top;
+        mRight[slot] = right;
+        mBottom[slot] = bottom;
+
+        mNext = (slot + 1) % mCapacity;
+
+        if (mSize < mCapacity) {
+            mSize++;
+        }
+    }
+
+    /**
+     * Returns the maximum number of frames kept.
+     *
+     * @return capacity
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Returns the number of frames currently held.
+     *
+     * @return recorded frame count; at most {@link #getCapacity()}
+     */
+    public synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * Drops all recorded frames.
+     */
+    public synchronized void clear() {
+        mNext = 0;
+        mSize = 0;
+    }
+
+    /**
+     * Writes the recorded frames, oldest first, as Chrome trace-event JSON.
+     * Each frame is written as a complete ('X') event spanning the whole
+     * `onDraw(Canvas)` call, with its setup & draw times, rounding
+     * progress and rounded rect as arguments. Rounding progress is
+     * additionally written as a counter ('C') event, so that it is
+     * plotted alongside the frames.
+     *
+     * @param writer writer to write to; not closed
+     * @throws IOException if writing fails
+     */
+    public synchronized void writeChromeTrace(Writer writer) throws IOException {
+        writer.write("{\"traceEvents\":[");
+
+        int first = (mNext - mSize + mCapacity) % mCapacity;
+
+        for (int i = 0; i < mSize; i++) {
+            int slot = (first + i) % mCapacity;
+
+            if (i > 0) {
+                writer.write(',');
+            }
+
+            writeFrameEvent(writer, slot);
+            writer.write(',');
+            writeCounterEvent(writer, slot);
+        }
+
+        writer.write("],\"displayTimeUnit\":\"ms\"}");
+    }
+
+    /**
+     * Returns the recorded frames as Chrome trace-event JSON.
+     * See {@link #writeChromeTrace(Writer)}.
+     *
+     * @return trace JSON
+     */
+    public String toChromeTraceJson() {
+        StringWriter writer = new StringWriter();
+
+        try {
+            writeChromeTrace(writer);
+        } catch (IOException e) {
+            // StringWriter doesn't throw
+            throw new IllegalStateException(e);
+        }
+
+        return writer.toString();
+    }
+
+    private void writeFrameEvent(Writer writer, int slot) throws IOException {
+        long frameStartNanos = mFrameStartNanos[slot];
+        long setupEndNanos = mSetupEndNanos[slot];
+        long drawEndNanos = mDrawEndNanos[slot];
+
+        writer.write("{\"name\":\"TransitionImageView#onDraw\",\"cat\":\"itl\",\"ph\":\"X\",\"pid\":0,\"tid\":");
+        writer.write(Integer.toString(mViewIds[slot]));
+        writer.write(",\"ts\":");
+        writeMicros(writer, frameStartNanos);
+        writer.write(",\"dur\":");
+        writeMicros(writer, drawEndNanos - frameStartNanos);
+        writer.write(",\"args\":{\"setupUs\":");
+        writeMicros(writer, setupEndNanos - frameStartNanos);
+        writer.write(",\"drawUs\":");
+        writeMicros(writer, drawEndNanos - setupEndNanos);
+        writer.write(",\"roundingProgress\":");
+        writer.write(Float.toString(mRoundingProgress[slot]));
+        writer.write(",\"left\":");
+        writer.write(Float.toString(mLeft[slot]));
+        writer.write(",\"top\":");
+        writer.write(Float.toString(mTop[slot]));
+        writer.write(",\"right\":");
+        writer.write(Float.toString(mRight[slot]));
+        writer.write(",\"bottom\":");
+        writer.write(Float.toString(mBottom[slot]));
+        writer.write("}}");
+    }
+
+    private void writeCounterEvent(Writer writer, int slot) throws IOException {
+        writer.write("{\"name\":\"roundingProgress\",\"cat\":\"itl\",\"ph\":\"C\",\"pid\":0,\"tid\":");
+        writer.write(Integer.toString(mViewIds[slot]));
+        writer.write(",\"ts\":");
+        writeMicros(writer, mFrameStartNanos[slot]);
+        writer.write(",\"args\":{\"view ");
+        writer.write(Integer.toString(mViewIds[slot]));
+        writer.write("\":");
+        writer.write(Float.toString(mRoundingProgress[slot]));
+        writer.write("}}");
+    }
+
+    // Trace-event timestamps are in microseconds; fractions are allowed
+    private static void writeMicros(Writer writer, long nanos) throws IOException {
+        writer.write(Long.toString(nanos / 1000));
+        writer.write('.');
+
+        long fraction = Math.abs(nanos % 1000);
+
+        if (fraction < 100) {
+            writer.write('0');
+        }
+
+        if (fraction < 10) {
+            writer.write('0');
+        }
+
+        writer.write(Long.toString(fraction));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 Vikram Kakkar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.appeaser.imagetransitionlibrary;
+
+import android.os.Build;
+import android.view.ViewGroup;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Access to hidden {@link ViewGroup} functionality used by the framework's
+ * `ChangeBounds`, for transitions that animate bounds themselves.
+ */
+final class ViewGroupUtils {
+
+    // `ViewGroup#suppressLayout(boolean)`: hidden, from API 18 on
+    private static Method sSuppressLayoutMethod;
+    private static boolean sSuppressLayoutMethodFetched;
+
+    private ViewGroupUtils() {}
+
+    /**
+     * Stops the given view group from laying out its children until called again with
+     * `false`. Layout requests made in between are carried out at that point.
+     * Does nothing below API 18.
+     *
+     * @param group view group to suppress layout of
+     * @param suppress `true` to suppress layout, `false` to allow it again
+     */
+    static void suppressLayout(ViewGroup group, boolean suppress) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            return;
+        }
+
+        if (!sSuppressLayoutMethodFetched) {
+            try {
+                sSuppressLayoutMethod = ViewGroup.class.getDeclaredMethod("suppressLayout", boolean.class);
+                sSuppressLayoutMethod.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                // layout won't be suppressed
+                sSuppressLayoutMethod = null;
+            }
+
+            sSuppressLayoutMethodFetched = true;
+        }
+
+        if (sSuppressLayoutMethod == null) {
+            return;
+        }
+
+        try {
+            sSuppressLayoutMethod.invoke(group, suppress);
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        } catch (InvocationTargetException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.appeaser.imagetransitionlibrary;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures the bytes a task allocates on the calling thread. Tests using it
+ * are skipped on JVMs that can't report per-thread allocations.
+ *
+ * Unit tests run with `unitTests.returnDefaultValues`: framework classes are
+ * no-ops returning `null`, `0` or `false`, and allocate nothing. Only what the
+ * library's own code allocates is measured - not what the framework would
+ * allocate on a device.
+ */
+final class AllocationMeter {
+
+    private AllocationMeter() {}
+
+    /**
+     * Runs `task` `warmUpRuns` times, so that the measured run is not skewed
+     * by class loading & compilation, then once more while measuring.
+     *
+     * @param task code to measure
+     * @param warmUpRuns number of unmeasured runs first
+     * @return bytes allocated by the measured run
+     */
+    static long measure(Runnable task, int warmUpRuns) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        for (int i = 0; i < warmUpRuns; i++) {
+            task.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+
+        // cost of measuring itself
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        long after = threadBean.getThreadAllocatedBytes(threadId);
+        long overhead = after - before;
+
+        before = threadBean.getThreadAllocatedBytes(threadId);
+        task.run();
+        after = threadBean.getThreadAllocatedBytes(threadId);
+
+        return after - before - overhead;
+    }
+}
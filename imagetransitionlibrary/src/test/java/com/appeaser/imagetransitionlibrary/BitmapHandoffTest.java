@@ -0,0 +1,46 @@
+package com.appeaser.imagetransitionlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link BitmapHandoff}.
+ */
+public class BitmapHandoffTest {
+
+    @Test
+    public void put_dropsExpiredEntries() throws Exception {
+        BitmapHandoff handoff = new BitmapHandoff();
+
+        handoff.put("first", null, 0);
+        handoff.put("second", null, 1000);
+        assertEquals(2, handoff.size());
+
+        // the first was never taken, and has expired by now
+        handoff.put("third", null, BitmapHandoff.EXPIRY_MILLIS + 500);
+        assertEquals(2, handoff.size());
+    }
+
+    @Test
+    public void take_dropsExpiredEntries() throws Exception {
+        BitmapHandoff handoff = new BitmapHandoff();
+
+        handoff.put("first", null, 0);
+        handoff.put("second", null, 1000);
+
+        handoff.take("unrelated", BitmapHandoff.EXPIRY_MILLIS + 1000);
+        assertEquals(0, handoff.size());
+    }
+
+    @Test
+    public void take_removesEntry() throws Exception {
+        BitmapHandoff handoff = new BitmapHandoff();
+
+        handoff.put("first", null, 0);
+        handoff.put("second", null, 0);
+
+        handoff.take("first", 100);
+        assertEquals(1, handoff.size());
+    }
+}
@@ -0,0 +1,50 @@
+package com.appeaser.imagetransitionlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link BitmapMemoryAccounting}.
+ */
+public class BitmapMemoryAccountingTest {
+
+    @Test
+    public void isOversized_flagsBitmapsTwiceTheTargetSize() throws Exception {
+        // 3000x2000 photo in a 160px circle: drawn at 0.08
+        assertTrue(BitmapMemoryAccounting.isOversized(3000, 2000, 160, 160));
+
+        // same photo as a full-width backdrop: drawn at 0.36
+        assertTrue(BitmapMemoryAccounting.isOversized(3000, 2000, 1080, 600));
+
+        // decoded for the backdrop: drawn at 0.9
+        assertFalse(BitmapMemoryAccounting.isOversized(1200, 800, 1080, 600));
+
+        // exactly twice the target size on the limiting side
+        assertTrue(BitmapMemoryAccounting.isOversized(320, 640, 160, 160));
+        assertFalse(BitmapMemoryAccounting.isOversized(318, 640, 160, 160));
+    }
+
+    @Test
+    public void isOversized_ignoresUnknownSizes() throws Exception {
+        assertFalse(BitmapMemoryAccounting.isOversized(3000, 2000, 0, 0));
+        assertFalse(BitmapMemoryAccounting.isOversized(0, 0, 160, 160));
+    }
+
+    @Test
+    public void register_tracksLiveViews() throws Exception {
+        BitmapMemoryAccounting accounting = BitmapMemoryAccounting.getInstance();
+        int before = accounting.getViewCount();
+
+        TransitionImageView view = new TransitionImageView(null);
+        assertEquals(before + 1, accounting.getViewCount());
+
+        // no image set
+        assertEquals(0, view.getOwnedBitmapBytes());
+        assertEquals(0, view.getBorrowedBitmapBytes());
+        assertFalse(view.isBitmapOversized());
+        assertFalse(accounting.getOversizedViews().contains(view));
+    }
+}
@@ -0,0 +1,120 @@
+package com.appeaser.imagetransitionlibrary;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.StateListDrawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link DrawableBitmapCache}.
+ */
+public class DrawableBitmapCacheTest {
+
+    @Test
+    public void get_allocatesNoKey() throws Exception {
+        final DrawableBitmapCache cache = DrawableBitmapCache.getInstance();
+        final Drawable drawable = new SharedStateDrawable(new SharedStateDrawable.State(), false);
+
+        assertEquals(0L, AllocationMeter.measure(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 1000; i++) {
+                    cache.get(drawable, 160, 160, Bitmap.Config.ARGB_8888);
+                }
+            }
+        }, 20));
+    }
+
+    @Test
+    public void isCacheable_sharedStatelessDrawable() throws Exception {
+        SharedStateDrawable.State state = new SharedStateDrawable.State();
+
+        assertTrue(DrawableBitmapCache.isCacheable(new SharedStateDrawable(state, false)));
+    }
+
+    @Test
+    public void isCacheable_skipsStatefulDrawables() throws Exception {
+        // e.g. a pressed & an unpressed drawable inflated from the same selector
+        SharedStateDrawable.State state = new SharedStateDrawable.State();
+
+        assertFalse(DrawableBitmapCache.isCacheable(new SharedStateDrawable(state, true)));
+    }
+
+    @Test
+    public void isCacheable_skipsDrawableContainers() throws Exception {
+        assertFalse(DrawableBitmapCache.isCacheable(new StateListDrawable() {
+            @Override
+            public ConstantState getConstantState() {
+                return new SharedStateDrawable.State();
+            }
+        }));
+    }
+
+    @Test
+    public void isCacheable_skipsDrawablesWithoutConstantState() throws Exception {
+        assertFalse(DrawableBitmapCache.isCacheable(new SharedStateDrawable(null, false)));
+    }
+
+    /**
+     * Drawable sharing the given `ConstantState`, the way
+     * drawables inflated from the same resource do.
+     */
+    private static class SharedStateDrawable extends Drawable {
+
+        private final State mState;
+        private final boolean mStateful;
+
+        SharedStateDrawable(State state, boolean stateful) {
+            mState = state;
+            mStateful = stateful;
+        }
+
+        @Override
+        public ConstantState getConstantState() {
+            return mState;
+        }
+
+        @Override
+        public boolean isStateful() {
+            return mStateful;
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+        }
+
+        @Override
+        public void setColorFilter(ColorFilter colorFilter) {
+        }
+
+        @Override
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
+        }
+
+        static class State extends ConstantState {
+
+            @Override
+            public Drawable newDrawable() {
+                return new SharedStateDrawable(this, false);
+            }
+
+            @Override
+            public int getChangingConfigurations() {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.appeaser.imagetransitionlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link FrameTimeMonitor}.
+ */
+public class FrameTimeMonitorTest {
+
+    private static final long FRAME = 16666667L;
+    private static final long SLOW_FRAME = 2 * FRAME;
+
+    @Test
+    public void onFrame_keepsQualityWithinBudget() throws Exception {
+        FrameTimeMonitor monitor = new FrameTimeMonitor();
+
+        assertFalse(runFrames(monitor, 1, FRAME, 60));
+    }
+
+    @Test
+    public void onFrame_reducesQualityAfterConsecutiveSlowFrames() throws Exception {
+        FrameTimeMonitor monitor = new FrameTimeMonitor();
+        long time = 1;
+
+        // first frame has no interval
+        assertFalse(monitor.onFrame(time));
+
+        for (int i = 1; i < FrameTimeMonitor.OVER_BUDGET_FRAME_THRESHOLD; i++) {
+            time += SLOW_FRAME;
+            assertFalse(monitor.onFrame(time));
+        }
+
+        time += SLOW_FRAME;
+        assertTrue(monitor.onFrame(time));
+
+        // holds for the rest of the animation
+        assertTrue(runFrames(monitor, time + FRAME, FRAME, 60));
+    }
+
+    @Test
+    public void onFrame_ignoresIsolatedSlowFrames() throws Exception {
+        FrameTimeMonitor monitor = new FrameTimeMonitor();
+        long time = 1;
+        monitor.onFrame(time);
+
+        for (int i = 0; i < 30; i++) {
+            time += (i % 2 == 0) ? SLOW_FRAME : FRAME;
+            assertFalse(monitor.onFrame(time));
+        }
+    }
+
+    @Test
+    public void onFrameSkipped_intervalAcrossSkippedFrameNotCounted() throws Exception {
+        FrameTimeMonitor monitor = new FrameTimeMonitor();
+        long time = 1;
+        monitor.onFrame(time);
+
+        // every other frame is a sub-pixel change that isn't drawn
+        for (int i = 0; i < 30; i++) {
+            monitor.onFrameSkipped();
+            time += SLOW_FRAME;
+            assertFalse(monitor.onFrame(time));
+        }
+    }
+
+    @Test
+    public void reset_restoresQuality() throws Exception {
+        FrameTimeMonitor monitor = new FrameTimeMonitor();
+        assertTrue(runFrames(monitor, 1, SLOW_FRAME, 10));
+
+        monitor.reset();
+
+        assertFalse(monitor.isQualityReduced());
+        // the gap since the previous animation doesn't count
+        assertFalse(runFrames(monitor, 10 * SLOW_FRAME + 1000000000L, FRAME, 10));
+    }
+
+    private static boolean runFrames(FrameTimeMonitor monitor, long start, long interval, int count) {
+        boolean reduced = false;
+
+        for (int i = 0; i < count; i++) {
+            reduced = monitor.onFrame(start + i * interval);
+        }
+
+        return reduced;
+    }
+}
@@ -0,0 +1,34 @@
+package com.appeaser.imagetransitionlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link ImageDecodeRequest}.
+ */
+public class ImageDecodeRequestTest {
+
+    @Test
+    public void calculateInSampleSize_coversTargetSize() throws Exception {
+        // 4000x3000 photo in a 160px circle: 250x187 still covers it
+        assertEquals(16, ImageDecodeRequest.calculateInSampleSize(4000, 3000, 160, 160));
+
+        // full-width backdrop: 2000x1500 covers 1080x600, 1000x750 doesn't
+        assertEquals(2, ImageDecodeRequest.calculateInSampleSize(4000, 3000, 1080, 600));
+
+        // exact halves are allowed
+        assertEquals(2, ImageDecodeRequest.calculateInSampleSize(400, 400, 200, 200));
+    }
+
+    @Test
+    public void calculateInSampleSize_neverUpscales() throws Exception {
+        assertEquals(1, ImageDecodeRequest.calculateInSampleSize(100, 100, 200, 150));
+        assertEquals(1, ImageDecodeRequest.calculateInSampleSize(100, 100, 100, 100));
+    }
+
+    @Test
+    public void calculateInSampleSize_fullSizeWhenTargetUnknown() throws Exception {
+        assertEquals(1, ImageDecodeRequest.calculateInSampleSize(4000, 3000, 0, 0));
+    }
+}
@@ -0,0 +1,221 @@
+package com.appeaser.imagetransitionlibrary;
+
+import android.animation.AnimatorSet;
+import android.content.Context;
+import android.graphics.Rect;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link ImageTransitionCompatHelper}.
+ */
+public class ImageTransitionCompatHelperTest {
+
+    private static final int SHARED_ELEMENT_COUNT = 50;
+
+    // Budget for the library's own allocations per shared element:
+    // the varargs arrays it passes to the animator factories
+    private static final long MAX_LIBRARY_BYTES_PER_SHARED_ELEMENT = 64;
+
+    @Test
+    public void getTransitionProperties_computedOnce() throws Exception {
+        ImageTransition transition = new ImageTransition();
+        String[] properties = transition.getTransitionProperties();
+
+        assertSame(properties, transition.getTransitionProperties());
+        assertEquals("itl:changeBounds:roundingProgress", properties[properties.length - 1]);
+    }
+
+    @Test
+    public void boxRoundingProgress_reusesCommonValues() throws Exception {
+        assertSame(ImageTransitionCompatHelper.boxRoundingProgress(0f),
+                ImageTransitionCompatHelper.boxRoundingProgress(0f));
+        assertSame(ImageTransitionCompatHelper.boxRoundingProgress(1f),
+                ImageTransitionCompatHelper.boxRoundingProgress(1f));
+        assertEquals(0.5f, ImageTransitionCompatHelper.boxRoundingProgress(0.5f), 0f);
+    }
+
+    @Test
+    public void createAnimator_leavesOtherViewsAlone() throws Exception {
+        AnimatorSet parentAnimator = new AnimatorSet();
+
+        assertSame(parentAnimator, ImageTransitionCompatHelper.createAnimator(parentAnimator, null,
+                null, new HashMap<String, Object>(), new HashMap<String, Object>()));
+    }
+
+    @Test
+    public void fusedUpdateListener_setsBoundsInOneLayoutCall() throws Exception {
+        LayoutRecordingView view = new LayoutRecordingView();
+        ImageTransitionCompatHelper.FusedUpdateListener listener =
+                new ImageTransitionCompatHelper.FusedUpdateListener(view,
+                        rect(0, 0, 100, 100), rect(50, 20, 250, 420), 1f, 0f);
+
+        listener.apply(0.5f);
+
+        assertEquals(1, view.layoutCount);
+        assertEquals(25, view.left);
+        assertEquals(10, view.top);
+        assertEquals(175, view.right);
+        assertEquals(260, view.bottom);
+    }
+
+    @Test
+    public void layoutSuppressor_releasesLayoutOnEndCancelAndPause() throws Exception {
+        ImageTransitionCompatHelper.LayoutSuppressor suppressor =
+                new ImageTransitionCompatHelper.LayoutSuppressor(new EmptyViewGroup());
+
+        suppressor.onAnimationStart(null);
+        assertTrue(suppressor.isSuppressed());
+
+        suppressor.onAnimationPause(null);
+        assertFalse(suppressor.isSuppressed());
+
+        suppressor.onAnimationResume(null);
+        assertTrue(suppressor.isSuppressed());
+
+        suppressor.onAnimationCancel(null);
+        assertFalse(suppressor.isSuppressed());
+
+        suppressor.onAnimationStart(null);
+        suppressor.onAnimationEnd(null);
+        assertFalse(suppressor.isSuppressed());
+    }
+
+    @Test
+    public void capturedViews_holdBackFullResolutionImageUntilReleased() throws Exception {
+        ImageRecordingView view = new ImageRecordingView();
+        ImageTransitionCompatHelper.CapturedViews capturedViews = new ImageTransitionCompatHelper.CapturedViews();
+
+        // start & end values
+        capturedViews.add(view);
+        capturedViews.add(view);
+
+        ColorDrawable fullResolution = new ColorDrawable();
+        view.setFullResolutionImageDrawable(fullResolution);
+        assertNull(view.imageDrawable);
+
+        capturedViews.release();
+        assertSame(fullResolution, view.imageDrawable);
+    }
+
+    /**
+     * Bounds what the library's own code allocates when a transition starts.
+     * Framework animators are stubs here (see {@link AllocationMeter}) -
+     * what `ObjectAnimator` & `AnimatorSet` allocate on a device isn't covered.
+     */
+    @Test
+    public void captureAndCreateAnimator_libraryAllocationsBoundedFor50SharedElements() throws Exception {
+        final List<TransitionImageView> views = new ArrayList<TransitionImageView>();
+        final List<Map<String, Object>> startValues = new ArrayList<Map<String, Object>>();
+        final List<Map<String, Object>> endValues = new ArrayList<Map<String, Object>>();
+        final AnimatorSet[] parentAnimators = new AnimatorSet[SHARED_ELEMENT_COUNT];
+
+        for (int i = 0; i < SHARED_ELEMENT_COUNT; i++) {
+            views.add(new TransitionImageView(null));
+            startValues.add(new HashMap<String, Object>());
+            endValues.add(new HashMap<String, Object>());
+            parentAnimators[i] = new AnimatorSet();
+        }
+
+        long allocated = AllocationMeter.measure(new Runnable() {
+            @Override
+            public void run() {
+                runTransitionStart(views, startValues, endValues, parentAnimators);
+            }
+        }, 1000);
+
+        assertTrue("allocated " + allocated + " bytes",
+                allocated <= SHARED_ELEMENT_COUNT * MAX_LIBRARY_BYTES_PER_SHARED_ELEMENT);
+    }
+
+    /**
+     * Captures start & end values and creates animators the
+     * way {@link ImageTransition} does, for every shared element.
+     */
+    private static void runTransitionStart(List<TransitionImageView> views,
+                                           List<Map<String, Object>> startValues,
+                                           List<Map<String, Object>> endValues,
+                                           AnimatorSet[] parentAnimators) {
+        for (int i = 0; i < views.size(); i++) {
+            TransitionImageView view = views.get(i);
+
+            view.setRoundingProgress(TransitionImageView.RoundingProgress.MAX.progressValue());
+            ImageTransitionCompatHelper.captureValues(view, startValues.get(i));
+
+            view.setRoundingProgress(TransitionImageView.RoundingProgress.MIN.progressValue());
+            ImageTransitionCompatHelper.captureValues(view, endValues.get(i));
+
+            ImageTransitionCompatHelper.createAnimator(parentAnimators[i], null, view,
+                    startValues.get(i), endValues.get(i));
+        }
+    }
+
+    private static Rect rect(int left, int top, int right, int bottom) {
+        Rect rect = new Rect();
+        rect.left = left;
+        rect.top = top;
+        rect.right = right;
+        rect.bottom = bottom;
+        return rect;
+    }
+
+    private static class LayoutRecordingView extends TransitionImageView {
+
+        int layoutCount;
+        int left, top, right, bottom;
+
+        LayoutRecordingView() {
+            super(null);
+        }
+
+        @Override
+        public void layout(int l, int t, int r, int b) {
+            layoutCount++;
+            left = l;
+            top = t;
+            right = r;
+            bottom = b;
+        }
+    }
+
+    private static class ImageRecordingView extends TransitionImageView {
+
+        Drawable imageDrawable;
+
+        ImageRecordingView() {
+            super(null);
+        }
+
+        @Override
+        public void setImageDrawable(Drawable drawable) {
+            imageDrawable = drawable;
+            super.setImageDrawable(drawable);
+        }
+    }
+
+    private static class EmptyViewGroup extends ViewGroup {
+
+        EmptyViewGroup() {
+            super((Context) null);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            // no children
+        }
+    }
+}
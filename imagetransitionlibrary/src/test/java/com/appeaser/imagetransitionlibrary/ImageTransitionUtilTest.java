@@ -0,0 +1,136 @@
+package com.appeaser.imagetransitionlibrary;
+
+import android.support.v4.app.SharedElementCallback;
+import android.view.View;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the `SharedElementCallback`s built by {@link ImageTransitionUtil}.
+ */
+public class ImageTransitionUtilTest {
+
+    private static final int SHARED_ELEMENT_COUNT = 10000;
+
+    private static final float DELTA = 0f;
+
+    private static final float INITIAL_ROUNDING = TransitionImageView.RoundingProgress.MAX.progressValue();
+
+    @Test
+    public void builtCallback_appliesPerElementRounding() throws Exception {
+        List<String> names = new ArrayList<String>();
+        List<View> views = new ArrayList<View>();
+        SharedElementCallback callback = buildCallback(names, views, false);
+
+        callback.onSharedElementStart(names, views, null);
+
+        for (int i = 0; i < SHARED_ELEMENT_COUNT; i++) {
+            if (views.get(i) instanceof TransitionImageView) {
+                assertEquals("start of " + names.get(i), expectedStart(i),
+                        ((TransitionImageView) views.get(i)).getRoundingProgress(), DELTA);
+            }
+        }
+
+        callback.onSharedElementEnd(names, views, null);
+
+        for (int i = 0; i < SHARED_ELEMENT_COUNT; i++) {
+            if (views.get(i) instanceof TransitionImageView) {
+                assertEquals("end of " + names.get(i), expectedEnd(i),
+                        ((TransitionImageView) views.get(i)).getRoundingProgress(), DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void builtCallback_fallsBackToDefaultRounding() throws Exception {
+        List<String> names = new ArrayList<String>();
+        List<View> views = new ArrayList<View>();
+        SharedElementCallback callback = buildCallback(names, views, true);
+
+        callback.onSharedElementStart(names, views, null);
+        callback.onSharedElementEnd(names, views, null);
+
+        // element 1 has no rounding of its own
+        assertEquals(0.75f, ((TransitionImageView) views.get(1)).getRoundingProgress(), DELTA);
+        // element 2 does
+        assertEquals(expectedEnd(2), ((TransitionImageView) views.get(2)).getRoundingProgress(), DELTA);
+    }
+
+    @Test
+    public void builtCallback_keepsCurrentRoundingWhenExitingEarly() throws Exception {
+        List<String> names = new ArrayList<String>();
+        List<View> views = new ArrayList<View>();
+        SharedElementCallback callback = buildCallback(names, views, false);
+
+        callback.onSharedElementStart(names, views, null);
+        ((TransitionImageView) views.get(2)).setRoundingProgress(0.4f);
+        callback.onSharedElementEnd(names, views, null);
+
+        assertEquals(0.4f, ((TransitionImageView) views.get(2)).getRoundingProgress(), DELTA);
+    }
+
+    @Test
+    public void builtCallback_allocatesNothingPerCallback() throws Exception {
+        final List<String> names = new ArrayList<String>();
+        final List<View> views = new ArrayList<View>();
+        final SharedElementCallback callback = buildCallback(names, views, true);
+
+        assertEquals(0L, AllocationMeter.measure(new Runnable() {
+            @Override
+            public void run() {
+                callback.onSharedElementStart(names, views, null);
+                callback.onSharedElementEnd(names, views, null);
+            }
+        }, 20));
+    }
+
+    /**
+     * Fills `names` & `views` with {@link #SHARED_ELEMENT_COUNT} shared elements - every
+     * third one a plain `View` - and builds a callback with rounding for every even element.
+     * Names are listed in the reverse order of the one rounding was given in.
+     */
+    private static SharedElementCallback buildCallback(List<String> names, List<View> views,
+                                                       boolean withDefault) {
+        Map<String, float[]> rounding = new HashMap<String, float[]>();
+
+        for (int i = SHARED_ELEMENT_COUNT - 1; i >= 0; i--) {
+            if (i % 2 == 0) {
+                rounding.put(name(i), new float[]{expectedStart(i), expectedEnd(i)});
+            }
+        }
+
+        for (int i = 0; i < SHARED_ELEMENT_COUNT; i++) {
+            names.add(name(i));
+            views.add(i % 3 == 0 ? new View(null) : new TransitionImageView(null));
+        }
+
+        ImageTransitionUtil.SharedElementCallbackBuilder builder
+                = new ImageTransitionUtil.SharedElementCallbackBuilder().setRounding(rounding);
+
+        if (withDefault) {
+            builder.setDefaultRounding(0.25f, 0.75f);
+        }
+
+        return builder.build();
+    }
+
+    private static String name(int index) {
+        return "element_" + index;
+    }
+
+    // odd elements have no rounding of their own, and keep their initial rounding
+    private static float expectedStart(int index) {
+        return index % 2 == 0 ? 1f - (index % 10) / 10f : INITIAL_ROUNDING;
+    }
+
+    private static float expectedEnd(int index) {
+        return index % 2 == 0 ? (index % 10) / 20f : INITIAL_ROUNDING;
+    }
+}
@@ -0,0 +1,45 @@
+package com.appeaser.imagetransitionlibrary;
+
+import org.junit.Test;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_COMPLETE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_MODERATE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link MemoryTrimCallbacks}.
+ */
+public class MemoryTrimCallbacksTest {
+
+    private static final int SIZE = 8 * 1024 * 1024;
+
+    @Test
+    public void poolSizeForLevel_dropsPoolFirst() throws Exception {
+        assertEquals(SIZE, MemoryTrimCallbacks.poolSizeForLevel(TRIM_MEMORY_RUNNING_MODERATE, SIZE));
+        assertEquals(SIZE / 2, MemoryTrimCallbacks.poolSizeForLevel(TRIM_MEMORY_RUNNING_LOW, SIZE));
+        assertEquals(0, MemoryTrimCallbacks.poolSizeForLevel(TRIM_MEMORY_RUNNING_CRITICAL, SIZE));
+        assertEquals(0, MemoryTrimCallbacks.poolSizeForLevel(TRIM_MEMORY_UI_HIDDEN, SIZE));
+        assertEquals(0, MemoryTrimCallbacks.poolSizeForLevel(TRIM_MEMORY_COMPLETE, SIZE));
+    }
+
+    @Test
+    public void cacheSizeForLevel_keepsHalfWhileInForeground() throws Exception {
+        assertEquals(SIZE, MemoryTrimCallbacks.cacheSizeForLevel(TRIM_MEMORY_RUNNING_MODERATE, SIZE));
+        assertEquals(SIZE / 2, MemoryTrimCallbacks.cacheSizeForLevel(TRIM_MEMORY_RUNNING_LOW, SIZE));
+        assertEquals(SIZE / 2, MemoryTrimCallbacks.cacheSizeForLevel(TRIM_MEMORY_UI_HIDDEN, SIZE));
+        assertEquals(0, MemoryTrimCallbacks.cacheSizeForLevel(TRIM_MEMORY_BACKGROUND, SIZE));
+        assertEquals(0, MemoryTrimCallbacks.cacheSizeForLevel(TRIM_MEMORY_MODERATE, SIZE));
+    }
+
+    @Test
+    public void register_ignoresMissingContext() throws Exception {
+        // views created without an application, as in these tests
+        MemoryTrimCallbacks.register(null);
+        new TransitionImageView(null);
+    }
+}
@@ -0,0 +1,44 @@
+package com.appeaser.imagetransitionlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link MipChain}.
+ */
+public class MipChainTest {
+
+    @Test
+    public void levelCount_stopsAtMinimumSize() throws Exception {
+        // 3000x2000 -> ... -> 23x15: the 8th level is too small
+        assertEquals(7, MipChain.levelCount(3000, 2000));
+
+        // small bitmaps aren't mipmapped at all
+        assertEquals(1, MipChain.levelCount(20, 200));
+
+        // capped for very large bitmaps
+        assertEquals(MipChain.MAX_LEVEL_COUNT, MipChain.levelCount(100000, 100000));
+    }
+
+    @Test
+    public void levelSize_halvesPerLevel() throws Exception {
+        assertEquals(3000, MipChain.levelSize(3000, 0));
+        assertEquals(1500, MipChain.levelSize(3000, 1));
+        assertEquals(375, MipChain.levelSize(3000, 3));
+        assertEquals(1, MipChain.levelSize(3, 5));
+    }
+
+    @Test
+    public void levelForScale_neverUpscales() throws Exception {
+        assertEquals(0, MipChain.levelForScale(1.5f, 7));
+        assertEquals(0, MipChain.levelForScale(0.6f, 7));
+        assertEquals(1, MipChain.levelForScale(0.5f, 7));
+
+        // 160px circle showing a 3000x2000 photo: level 3 (375x250) at 0.64
+        assertEquals(3, MipChain.levelForScale(0.08f, 7));
+
+        // limited by the number of levels available
+        assertEquals(2, MipChain.levelForScale(0.01f, 3));
+    }
+}
@@ -0,0 +1,175 @@
+package com.appeaser.imagetransitionlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link TransitionGeometry}.
+ */
+public class TransitionGeometryTest {
+
+    private static final float DELTA = 0.001f;
+
+    @Test
+    public void computeBounds_perfectRoundingIsCentredSquare() throws Exception {
+        TransitionGeometry geometry = new TransitionGeometry();
+        geometry.computeBounds(200, 100, 0, 0, 0, 0, 1f);
+
+        assertEquals(50f, geometry.left, DELTA);
+        assertEquals(0f, geometry.top, DELTA);
+        assertEquals(150f, geometry.right, DELTA);
+        assertEquals(100f, geometry.bottom, DELTA);
+        assertEquals(100f, geometry.radius, DELTA);
+    }
+
+    @Test
+    public void computeBounds_noRoundingFillsPaddedArea() throws Exception {
+        TransitionGeometry geometry = new TransitionGeometry();
+        geometry.computeBounds(200, 100, 10, 5, 10, 5, 0f);
+
+        assertEquals(10f, geometry.left, DELTA);
+        assertEquals(5f, geometry.top, DELTA);
+        assertEquals(190f, geometry.right, DELTA);
+        assertEquals(95f, geometry.bottom, DELTA);
+        assertEquals(0f, geometry.radius, DELTA);
+    }
+
+    @Test
+    public void computeShaderTransform_centerCrops() throws Exception {
+        TransitionGeometry geometry = new TransitionGeometry();
+        geometry.computeBounds(100, 100, 0, 0, 0, 0, 0f);
+        geometry.computeShaderTransform(400, 200);
+
+        // bitmap is wider: scale to height, crop horizontally
+        assertEquals(0.5f, geometry.scale, DELTA);
+        // offset of -50px is rounded the same way CircleImageView does it: (int) (dx + 0.5f)
+        assertEquals(-49f, geometry.translateX, DELTA);
+        assertEquals(0f, geometry.translateY, DELTA);
+    }
+
+    @Test
+    public void centerCropScale_coversTargetArea() throws Exception {
+        // 3000x2000 photo shown in a 160px circle: height is the limiting side
+        assertEquals(0.08f, TransitionGeometry.centerCropScale(3000, 2000, 160, 160), DELTA);
+
+        // full-width backdrop needs more pixels horizontally
+        assertEquals(0.36f, TransitionGeometry.centerCropScale(3000, 2000, 1080, 600), DELTA);
+
+        // small bitmap in a large view would have to be upscaled
+        assertEquals(2f, TransitionGeometry.centerCropScale(100, 100, 200, 150), DELTA);
+    }
+
+    @Test
+    public void boundsDifferVisibly_ignoresSubPixelChanges() throws Exception {
+        TransitionGeometry drawn = new TransitionGeometry();
+        drawn.computeBounds(200, 100, 0, 0, 0, 0, 0.495f);
+
+        TransitionGeometry candidate = new TransitionGeometry();
+        candidate.computeBounds(200, 100, 0, 0, 0, 0, 0.495f);
+        assertFalse(candidate.boundsDifferVisibly(drawn));
+
+        // radius changes by 0.2px, bounds not at all
+        candidate.computeBounds(200, 100, 0, 0, 0, 0, 0.497f);
+        assertFalse(candidate.boundsDifferVisibly(drawn));
+
+        // radius changes by 1px
+        candidate.computeBounds(200, 100, 0, 0, 0, 0, 0.505f);
+        assertTrue(candidate.boundsDifferVisibly(drawn));
+    }
+
+    @Test
+    public void boundsDifferVisibly_skipsFramesAtEndsOfEasedTransition() throws Exception {
+        TransitionGeometry drawn = new TransitionGeometry();
+        TransitionGeometry candidate = new TransitionGeometry();
+        int frames = 60;
+        int skipped = 0;
+
+        drawn.computeBounds(1080, 1080, 0, 0, 0, 0, 1f);
+
+        for (int frame = 1; frame <= frames; frame++) {
+            // accelerate-decelerate, as used by ChangeBounds
+            float fraction = (float) (Math.cos((frame / (float) frames + 1) * Math.PI) / 2f) + 0.5f;
+            candidate.computeBounds(1080, 1080, 0, 0, 0, 0, 1f - fraction);
+
+            if (candidate.boundsDifferVisibly(drawn)) {
+                drawn.computeBounds(1080, 1080, 0, 0, 0, 0, 1f - fraction);
+            } else {
+                skipped++;
+            }
+        }
+
+        assertTrue("skipped " + skipped, skipped > 0);
+
+        // what's left on screen is within half a pixel of the end state
+        candidate.computeBounds(1080, 1080, 0, 0, 0, 0, 0f);
+        assertFalse(candidate.boundsDifferVisibly(drawn));
+    }
+
+    @Test
+    public void computeBoundsIfChanged_skipsUnchangedInput() throws Exception {
+        TransitionGeometry geometry = new TransitionGeometry();
+        assertFalse(geometry.hasBounds());
+
+        assertTrue(geometry.computeBoundsIfChanged(200, 100, 0, 0, 0, 0, 1f));
+        assertTrue(geometry.hasBounds());
+        assertFalse(geometry.computeBoundsIfChanged(200, 100, 0, 0, 0, 0, 1f));
+
+        // rounding & padding are part of the input
+        assertTrue(geometry.computeBoundsIfChanged(200, 100, 0, 0, 0, 0, 0.5f));
+        assertTrue(geometry.computeBoundsIfChanged(200, 100, 4, 0, 0, 0, 0.5f));
+        assertEquals(28f, geometry.left, DELTA);
+
+        geometry.invalidateBounds();
+        assertFalse(geometry.hasBounds());
+        assertTrue(geometry.computeBoundsIfChanged(200, 100, 4, 0, 0, 0, 0.5f));
+    }
+
+    @Test
+    public void computeDirtyBounds_coversBothRects() throws Exception {
+        // 1080x600 backdrop: rounding the rectangle into a centred circle
+        TransitionGeometry from = new TransitionGeometry();
+        from.computeBounds(1080, 600, 0, 0, 0, 0, 0.9f);
+
+        TransitionGeometry to = new TransitionGeometry();
+        to.computeBounds(1080, 600, 0, 0, 0, 0, 1f);
+        to.computeDirtyBounds(from);
+
+        assertEquals((int) Math.floor(from.left) - 1, to.dirtyLeft);
+        assertEquals(-1, to.dirtyTop);
+        assertEquals((int) Math.ceil(from.right) + 1, to.dirtyRight);
+        assertEquals(601, to.dirtyBottom);
+
+        // 650 of the view's 1080px are redrawn
+        assertEquals(650, to.dirtyRight - to.dirtyLeft);
+    }
+
+    @Test
+    public void simulatedTransition_allocatesNothingPerFrame() throws Exception {
+        final TransitionGeometry geometry = new TransitionGeometry();
+
+        assertEquals(0L, AllocationMeter.measure(new Runnable() {
+            @Override
+            public void run() {
+                runTransition(geometry, 1000);
+            }
+        }, 20));
+    }
+
+    /**
+     * Animates from a 160px circle to a 1080x600px rectangle, the way
+     * {@link ImageTransition} drives {@link TransitionImageView}.
+     */
+    private static void runTransition(TransitionGeometry geometry, int frames) {
+        for (int frame = 0; frame <= frames; frame++) {
+            float fraction = frame / (float) frames;
+            int width = (int) (160 + fraction * (1080 - 160));
+            int height = (int) (160 + fraction * (600 - 160));
+
+            geometry.computeBounds(width, height, 0, 0, 0, 0, 1f - fraction);
+            geometry.computeShaderTransform(3000, 2000);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.appeaser.imagetransitionlibrary;
+
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link TransitionImageView#recycle()}, as used from a RecyclerView.
+ */
+public class TransitionImageViewRecyclingTest {
+
+    private static final float DELTA = 0.001f;
+
+    // Items on screen, plus those RecyclerView keeps around for reuse
+    private static final int POOLED_VIEW_COUNT = 12;
+
+    private static final int ITEM_COUNT = 10000;
+
+    @Test
+    public void recycle_resetsTransitionState() throws Exception {
+        TransitionImageView view = new TransitionImageView(null);
+        view.setRoundingProgress(0.3f);
+        view.setTargetImageSize(1080, 600);
+
+        view.recycle();
+
+        assertEquals(TransitionImageView.RoundingProgress.MAX.progressValue(),
+                view.getRoundingProgress(), DELTA);
+        assertEquals(0, view.getTargetImageWidth());
+        assertEquals(0, view.getTargetImageHeight());
+        assertEquals(0, view.getOwnedBitmapBytes());
+        assertFalse(view.isTransitionRunning());
+    }
+
+    @Test
+    public void recycleAndRebind_allocationsStayBounded() throws Exception {
+        final TransitionImageView[] views = new TransitionImageView[POOLED_VIEW_COUNT];
+
+        for (int i = 0; i < views.length; i++) {
+            views[i] = new TransitionImageView(null);
+        }
+
+        // images are loaded by the app - not part of what's measured
+        final Drawable[] images = new Drawable[ITEM_COUNT];
+
+        for (int i = 0; i < images.length; i++) {
+            images[i] = new ColorDrawable();
+        }
+
+        long allocated = AllocationMeter.measure(new Runnable() {
+            @Override
+            public void run() {
+                // binds every item to a view in turn, the way RecyclerView
+                // does while scrolling: the view's previous item is recycled first
+                for (int item = 0; item < images.length; item++) {
+                    TransitionImageView view = views[item % views.length];
+
+                    // onViewRecycled(...)
+                    view.recycle();
+
+                    // onBindViewHolder(...)
+                    view.setImageDrawable(images[item]);
+                }
+            }
+        }, 5);
+
+        // nothing is allocated per item
+        assertTrue("allocated " + allocated, allocated < ITEM_COUNT);
+    }
+}
@@ -0,0 +1,101 @@
+package com.appeaser.imagetransitionlibrary;
+
+import android.animation.Animator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link TransitionMetrics} & its reporting by {@link TransitionImageView}.
+ */
+public class TransitionMetricsTest {
+
+    @Test
+    public void onFrame_accumulatesDurations() throws Exception {
+        TransitionMetrics metrics = new TransitionMetrics();
+        metrics.start(1000, 400, 5);
+
+        metrics.onFrame(1100, 1150, 1400);
+        metrics.onFrame(1200, 1210, 1300);
+        metrics.finish(2000, 8);
+
+        assertEquals(2, metrics.getFrameCount());
+        assertEquals(700, metrics.getCaptureToFirstFrameNanos());
+        assertEquals(1000, metrics.getDurationNanos());
+        assertEquals(60, metrics.getTotalSetupNanos());
+        assertEquals(50, metrics.getMaxSetupNanos());
+        assertEquals(340, metrics.getTotalDrawNanos());
+        assertEquals(250, metrics.getMaxDrawNanos());
+        assertEquals(3, metrics.getSkippedFrameCount());
+    }
+
+    @Test
+    public void getCaptureToFirstFrameNanos_unknownWithoutCapture() throws Exception {
+        TransitionMetrics metrics = new TransitionMetrics();
+        metrics.start(1000, 0, 0);
+        metrics.onFrame(1100, 1150, 1400);
+
+        assertEquals(-1, metrics.getCaptureToFirstFrameNanos());
+    }
+
+    @Test
+    public void transitionEnd_reportsToListeners() throws Exception {
+        TransitionImageView view = new TransitionImageView(null);
+        RecordingListener viewListener = new RecordingListener();
+        RecordingListener transitionListener = new RecordingListener();
+
+        view.setMetricsListener(viewListener);
+        view.setTransitionMetricsListener(transitionListener);
+
+        Animator.AnimatorListener animatorListener = view.getTransitionListener();
+        animatorListener.onAnimationStart(null);
+
+        // not drawn yet: there's no geometry to skip frames against
+        view.setRoundingProgress(0.5f);
+        view.setRoundingProgress(0.25f);
+
+        animatorListener.onAnimationEnd(null);
+
+        assertSame(view, viewListener.mView);
+        assertNotNull(viewListener.mMetrics);
+        assertSame(viewListener.mMetrics, transitionListener.mMetrics);
+        assertEquals(0, viewListener.mMetrics.getSkippedFrameCount());
+        assertEquals(0, viewListener.mMetrics.getFrameCount());
+    }
+
+    @Test
+    public void transitionEnd_transitionListenerIsCleared() throws Exception {
+        TransitionImageView view = new TransitionImageView(null);
+        RecordingListener transitionListener = new RecordingListener();
+
+        view.setTransitionMetricsListener(transitionListener);
+
+        Animator.AnimatorListener animatorListener = view.getTransitionListener();
+        animatorListener.onAnimationStart(null);
+        animatorListener.onAnimationEnd(null);
+
+        transitionListener.mMetrics = null;
+
+        // a later transition without a listener isn't measured
+        animatorListener.onAnimationStart(null);
+        animatorListener.onAnimationEnd(null);
+
+        assertNull(transitionListener.mMetrics);
+    }
+
+    private static class RecordingListener implements TransitionMetricsListener {
+
+        TransitionImageView mView;
+        TransitionMetrics mMetrics;
+
+        @Override
+        public void onTransitionMetrics(TransitionImageView view, TransitionMetrics metrics) {
+            mView = view;
+            mMetrics = metrics;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.appeaser.imagetransitionlibrary;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Outline;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.view.View;
+import android.view.ViewOutlineProvider;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link TransitionRenderer} & its implementations.
+ */
+public class TransitionRendererTest {
+
+    private static final int KITKAT = 19;
+    private static final int LOLLIPOP = 21;
+
+    @Test
+    public void resolve_autoPicksOutlineFromLollipop() throws Exception {
+        assertEquals(TransitionImageView.RenderMode.OUTLINE,
+                TransitionRenderer.resolve(TransitionImageView.RenderMode.AUTO, LOLLIPOP));
+        assertEquals(TransitionImageView.RenderMode.SHADER,
+                TransitionRenderer.resolve(TransitionImageView.RenderMode.AUTO, KITKAT));
+    }
+
+    @Test
+    public void resolve_outlineFallsBackToShaderBeforeLollipop() throws Exception {
+        assertEquals(TransitionImageView.RenderMode.SHADER,
+                TransitionRenderer.resolve(TransitionImageView.RenderMode.OUTLINE, KITKAT));
+    }
+
+    @Test
+    public void resolve_keepsExplicitModes() throws Exception {
+        assertEquals(TransitionImageView.RenderMode.SHADER,
+                TransitionRenderer.resolve(TransitionImageView.RenderMode.SHADER, LOLLIPOP));
+        assertEquals(TransitionImageView.RenderMode.MASK,
+                TransitionRenderer.resolve(TransitionImageView.RenderMode.MASK, KITKAT));
+    }
+
+    @Test
+    public void create_matchesMode() throws Exception {
+        Paint paint = new Paint();
+
+        assertTrue(TransitionRenderer.create(TransitionImageView.RenderMode.SHADER, paint)
+                instanceof ShaderRenderer);
+        assertTrue(TransitionRenderer.create(TransitionImageView.RenderMode.OUTLINE, paint)
+                instanceof OutlineRenderer);
+        assertTrue(TransitionRenderer.create(TransitionImageView.RenderMode.MASK, paint)
+                instanceof MaskRenderer);
+    }
+
+    @Test
+    public void shaderRenderer_drawsNothingWithoutBitmap() throws Exception {
+        ShaderRenderer renderer = new ShaderRenderer(new Paint());
+        RecordingCanvas canvas = new RecordingCanvas();
+
+        renderer.setBitmap(null);
+        renderer.setBounds(0, 0, 100, 100, 50);
+        renderer.setShaderMatrix(new Matrix());
+        renderer.draw(canvas);
+
+        assertEquals(0, canvas.drawCount);
+    }
+
+    @Test
+    public void outlineRenderer_invalidatesOutlineFromSettersOnly() throws Exception {
+        OutlineRenderer renderer = new OutlineRenderer(new Paint());
+        CountingView view = new CountingView();
+        renderer.attach(view);
+
+        // simulated transition: rounding goes from 1f to 0f, each frame set before it's drawn
+        for (int frame = 0; frame <= 10; frame++) {
+            renderer.onBoundsChanged();
+            renderer.setBounds(0, 0, 100, 100, 50 - frame * 5);
+        }
+
+        // drawing alone doesn't invalidate the outline
+        renderer.setBounds(0, 0, 100, 100, 0);
+        assertEquals(11, view.outlineInvalidations);
+
+        renderer.detach(view);
+        renderer.onBoundsChanged();
+        assertEquals(11, view.outlineInvalidations);
+    }
+
+    @Test
+    public void outlineRenderer_restoresPreviousOutlineOnDetach() throws Exception {
+        OutlineRenderer renderer = new OutlineRenderer(new Paint());
+        CountingView view = new CountingView();
+        ViewOutlineProvider userProvider = new ViewOutlineProvider() {
+            @Override
+            public void getOutline(View view, Outline outline) {
+                // not needed
+            }
+        };
+        view.setOutlineProvider(userProvider);
+
+        renderer.attach(view);
+        assertNotSame(userProvider, view.getOutlineProvider());
+        assertTrue(view.getClipToOutline());
+
+        renderer.detach(view);
+        assertSame(userProvider, view.getOutlineProvider());
+        assertFalse(view.getClipToOutline());
+    }
+
+    @Test
+    public void maskRenderer_rebuildsMaskOnlyWhenGeometryChanges() throws Exception {
+        MaskRenderer renderer = new MaskRenderer(new Paint());
+
+        renderer.setBounds(0, 0, 100, 100, 50);
+        renderer.ensureMask();
+        assertEquals(1, renderer.getMaskBuildCount());
+
+        // same size & radius at a different position: mask is reused
+        renderer.setBounds(20, 20, 120, 120, 50);
+        renderer.ensureMask();
+        renderer.ensureMask();
+        assertEquals(1, renderer.getMaskBuildCount());
+
+        renderer.setBounds(20, 20, 120, 120, 25);
+        renderer.ensureMask();
+        assertEquals(2, renderer.getMaskBuildCount());
+
+        renderer.release();
+    }
+
+    private static final class CountingView extends View {
+
+        int outlineInvalidations;
+
+        CountingView() {
+            super(null);
+        }
+
+        @Override
+        public void invalidateOutline() {
+            outlineInvalidations++;
+        }
+
+        // not kept by the framework stubs
+        private ViewOutlineProvider mOutlineProvider;
+        private boolean mClipToOutline;
+
+        @Override
+        public void setOutlineProvider(ViewOutlineProvider provider) {
+            mOutlineProvider = provider;
+        }
+
+        @Override
+        public ViewOutlineProvider getOutlineProvider() {
+            return mOutlineProvider;
+        }
+
+        @Override
+        public void setClipToOutline(boolean clipToOutline) {
+            mClipToOutline = clipToOutline;
+        }
+
+        @Override
+        public boolean getClipToOutline() {
+            return mClipToOutline;
+        }
+    }
+
+    private static final class RecordingCanvas extends Canvas {
+
+        int drawCount;
+
+        @Override
+        public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+            drawCount++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+            drawCount++;
+        }
+    }
+}
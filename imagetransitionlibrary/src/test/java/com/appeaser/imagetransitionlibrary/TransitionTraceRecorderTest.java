@@ -0,0 +1,64 @@
+package com.appeaser.imagetransitionlibrary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link TransitionTraceRecorder}.
+ */
+public class TransitionTraceRecorderTest {
+
+    @Test
+    public void toChromeTraceJson_emptyRecorder() throws Exception {
+        TransitionTraceRecorder recorder = new TransitionTraceRecorder(4);
+
+        assertEquals(0, recorder.size());
+        assertEquals("{\"traceEvents\":[],\"displayTimeUnit\":\"ms\"}", recorder.toChromeTraceJson());
+    }
+
+    @Test
+    public void toChromeTraceJson_writesFrameAndCounterEvents() throws Exception {
+        TransitionTraceRecorder recorder = new TransitionTraceRecorder(4);
+        recorder.record(7, 1234567, 1300000, 2000005, 0.5f, 10f, 0f, 170f, 160f);
+
+        String json = recorder.toChromeTraceJson();
+
+        assertTrue(json, json.contains("{\"name\":\"TransitionImageView#onDraw\",\"cat\":\"itl\",\"ph\":\"X\","
+                + "\"pid\":0,\"tid\":7,\"ts\":1234.567,\"dur\":765.438,"
+                + "\"args\":{\"setupUs\":65.433,\"drawUs\":700.005,\"roundingProgress\":0.5,"
+                + "\"left\":10.0,\"top\":0.0,\"right\":170.0,\"bottom\":160.0}}"));
+        assertTrue(json, json.contains("{\"name\":\"roundingProgress\",\"cat\":\"itl\",\"ph\":\"C\","
+                + "\"pid\":0,\"tid\":7,\"ts\":1234.567,\"args\":{\"view 7\":0.5}}"));
+    }
+
+    @Test
+    public void record_overwritesOldestFrames() throws Exception {
+        TransitionTraceRecorder recorder = new TransitionTraceRecorder(3);
+
+        for (int frame = 1; frame <= 5; frame++) {
+            recorder.record(1, frame * 1000000L, frame * 1000000L, frame * 1000000L + 1000,
+                    frame / 10f, 0f, 0f, 100f, 100f);
+        }
+
+        assertEquals(3, recorder.size());
+
+        String json = recorder.toChromeTraceJson();
+
+        // frames 1 & 2 were overwritten; 3 to 5 are written oldest first
+        assertFalse(json, json.contains("\"ts\":1000.000"));
+        assertFalse(json, json.contains("\"ts\":2000.000"));
+        assertTrue(json, json.indexOf("\"ts\":3000.000") < json.indexOf("\"ts\":4000.000"));
+        assertTrue(json, json.indexOf("\"ts\":4000.000") < json.indexOf("\"ts\":5000.000"));
+
+        recorder.clear();
+        assertEquals(0, recorder.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsZeroCapacity() throws Exception {
+        new TransitionTraceRecorder(0);
+    }
+}